@@ -0,0 +1,33 @@
+package benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 
+ * Entry point of the benchmarks jar. Accepts the usual JMH command line options and always
+ * adds the GC profiler, so every result reports the bytes allocated per operation
+ * 
+ * Usage: java -jar target/benchmarks.jar [JMH options] [benchmark regex]
+ * 
+ * @author Stephen
+ *
+ */
+public class BenchmarkRunner {
+
+	/**
+	 * Runs the benchmarks selected on the command line with allocation profiling
+	 * @param args: JMH command line options
+	 */
+	public static void main(String[] args) throws Exception {
+		Options options = new OptionsBuilder()
+				.parent(new CommandLineOptions(args))
+				.addProfiler(GCProfiler.class)
+				.build();
+		new Runner(options).run();
+	}
+
+}
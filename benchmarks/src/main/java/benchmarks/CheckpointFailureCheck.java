@@ -0,0 +1,128 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import model.simulations.Simulation;
+import persistence.CheckpointScheduler;
+import preprocessing.SimulationConfiguration;
+import preprocessing.SimulationGenerator;
+
+/**
+ *
+ * Checks that a checkpoint whose snapshot cannot be written is reported even when writing it fails with
+ * an unchecked exception: a scheduler is given no parameters, so the snapshot it writes in the background
+ * has no Simulation type and saving it throws a NullPointerException. Two cases are checked:
+ *
+ * LATER CHECKPOINT: checkpoints are requested until one fails with an IllegalStateException caused by
+ * that exception, which must happen within the time allowed, and closing the scheduler does not report
+ * the failure a second time
+ * LAST CHECKPOINT: the scheduler is closed right after the only checkpoint is requested, so close must
+ * report the failure
+ *
+ * Usage: java -cp target/benchmarks.jar benchmarks.CheckpointFailureCheck
+ *
+ * @author Stephen
+ *
+ */
+public class CheckpointFailureCheck {
+
+	private static final int SIZE = 16;
+	private static final long TIMEOUT_NANOSECONDS = 5_000_000_000L;
+	private static final String REPORT_FORMAT = "%-18s %s%n";
+
+	/**
+	 * Runs both cases and exits with a non-zero status if a failed checkpoint was not reported
+	 * @param args: unused
+	 */
+	public static void main(String[] args) throws IOException, InterruptedException {
+		String laterCheckpoint = checkLaterCheckpoint();
+		String lastCheckpoint = checkLastCheckpoint();
+		System.out.printf(REPORT_FORMAT, "LATER CHECKPOINT", laterCheckpoint == null ? "reported" : "FAILED: " + laterCheckpoint);
+		System.out.printf(REPORT_FORMAT, "LAST CHECKPOINT", lastCheckpoint == null ? "reported" : "FAILED: " + lastCheckpoint);
+		if (laterCheckpoint != null || lastCheckpoint != null) System.exit(1);
+	}
+
+	/**
+	 * @return null if checkpointIfDue reported the failure and close did not report it again; a description
+	 * of what happened otherwise
+	 */
+	private static String checkLaterCheckpoint() throws IOException, InterruptedException {
+		Simulation simulation = createSimulation();
+		Path directory = Files.createTempDirectory("checkpoints");
+		CheckpointScheduler checkpoints = createUnwritableScheduler(simulation, directory);
+		String outcome = "NOT REPORTED";
+		try {
+			long start = System.nanoTime();
+			while (System.nanoTime() - start < TIMEOUT_NANOSECONDS) {
+				simulation.updateGrid();
+				try {
+					checkpoints.checkpointIfDue();
+				} catch (IllegalStateException e) {
+					outcome = e.getCause() instanceof RuntimeException ? null : "REPORTED WITH CAUSE " + e.getCause();
+					break;
+				}
+				Thread.sleep(1);
+			}
+			try {
+				checkpoints.close();
+			} catch (IllegalStateException e) {
+				if (outcome == null) outcome = "REPORTED TWICE";
+			}
+		} finally {
+			delete(directory);
+		}
+		return outcome;
+	}
+
+	/**
+	 * @return null if close reported the failure of the last checkpoint; a description of what happened otherwise
+	 */
+	private static String checkLastCheckpoint() throws IOException, InterruptedException {
+		Simulation simulation = createSimulation();
+		Path directory = Files.createTempDirectory("checkpoints");
+		CheckpointScheduler checkpoints = createUnwritableScheduler(simulation, directory);
+		try {
+			simulation.updateGrid();
+			checkpoints.checkpointIfDue();
+			checkpoints.close();
+			return "NOT REPORTED";
+		} catch (IllegalStateException e) {
+			return e.getCause() instanceof RuntimeException ? null : "REPORTED WITH CAUSE " + e.getCause();
+		} finally {
+			delete(directory);
+		}
+	}
+
+	/**
+	 * @return a small Simulation of Game of Life
+	 */
+	private static Simulation createSimulation() {
+		SimulationConfiguration configuration = Scenarios.parse(Scenarios.createXML("GameOfLife", "GridStandard", "CellSquare", SIZE));
+		return new SimulationGenerator(configuration).getSimulation();
+	}
+
+	/**
+	 * @param simulation: the Simulation to checkpoint
+	 * @param directory: directory the checkpoints are written to
+	 * @return a scheduler due every generation whose snapshots cannot be saved
+	 */
+	private static CheckpointScheduler createUnwritableScheduler(Simulation simulation, Path directory) {
+		return new CheckpointScheduler(simulation, Collections.emptyMap(), directory, "unwritable", 1, 0, 1);
+	}
+
+	/**
+	 * Deletes a directory and everything in it
+	 * @param directory: the directory
+	 */
+	private static void delete(Path directory) throws IOException {
+		try (Stream<Path> files = Files.walk(directory)) {
+			files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+		}
+	}
+
+}
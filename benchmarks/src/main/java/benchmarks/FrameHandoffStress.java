@@ -0,0 +1,247 @@
+package benchmarks;
+
+import model.grid.Grid;
+import model.grid.GridFrame;
+import model.grid.GridFrameBuffer;
+import model.random.SplitMix64;
+
+/**
+ *
+ * Stress test of the GridFrameBuffer handoff, in the style of a jcstress test: a writer thread changes
+ * a Grid and publishes every generation as fast as it can, while a reader thread takes frames at
+ * irregular intervals, as a display that sometimes falls behind would. The Cells each generation
+ * changes are derived from the generation alone, so the reader replays the writer to learn what every
+ * frame it takes must hold. Every frame is classified and the outcomes are tallied:
+ *
+ * COMPLETE (acceptable): the frame holds exactly the generation it is labeled with, and redrawing
+ * the Cells it lists on top of the previous frame taken reproduces it
+ * TORN (forbidden): the frame's states are not those of the generation it is labeled with
+ * STALE (forbidden): the frame is not newer than the previous frame taken
+ * MISSED CHANGES (forbidden): the frame is complete, but a Cell that changed since the previous
+ * frame taken is not listed
+ *
+ * Every so often the writer changes half the Grid, so that frames also go through the path where the
+ * reader is told to redraw every Cell
+ *
+ * Usage: java -cp target/benchmarks.jar benchmarks.FrameHandoffStress [size] [seconds]
+ *
+ * @author Stephen
+ *
+ */
+public class FrameHandoffStress {
+
+	private static final int DEFAULT_SIZE = 128;
+	private static final int DEFAULT_SECONDS = 10;
+	private static final int MAXIMUM_CHANGES = 64;
+	private static final int BURST_PERIOD = 97;
+	private static final int NUMBER_OF_STATES = 126;
+	private static final int MAXIMUM_READER_DELAY = 2000;
+	private static final String REPORT_FORMAT = "%-16s %-12s %,d%n";
+
+	private final int numberOfCells;
+	private final int[] changedCells;
+	private volatile boolean finished;
+	private long generationsPublished;
+
+	/**
+	 * Instantiates a stress test on a square Grid
+	 * @param size: the number of rows and columns in the Grid
+	 */
+	private FrameHandoffStress(int size) {
+		numberOfCells = size * size;
+		changedCells = new int[numberOfCells];
+	}
+
+	/**
+	 * Runs the stress test and exits with a non-zero status if any forbidden outcome was observed
+	 * @param args: optionally the size of the Grid, then the number of seconds to run for
+	 */
+	public static void main(String[] args) throws InterruptedException {
+		int size = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_SIZE;
+		int seconds = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_SECONDS;
+		long[] outcomes = new FrameHandoffStress(size).run(size, seconds);
+		Outcome.report(outcomes);
+		if (Outcome.countForbidden(outcomes) > 0) System.exit(1);
+	}
+
+	/**
+	 * Runs the writer and reader concurrently for the given time
+	 * @param size: the number of rows and columns in the Grid
+	 * @param seconds: how long to run for
+	 * @return the number of frames observed with each outcome, indexed by the outcome's ordinal
+	 */
+	private long[] run(int size, int seconds) throws InterruptedException {
+		Grid grid = Scenarios.createGrid("GridStandard", size);
+		GridFrameBuffer frames = new GridFrameBuffer(numberOfCells);
+		Thread writer = new Thread(() -> write(grid, frames), "writer");
+		long[] outcomes = new long[Outcome.values().length];
+		Thread reader = new Thread(() -> read(frames, outcomes), "reader");
+		writer.start();
+		reader.start();
+		Thread.sleep(seconds * 1000L);
+		finished = true;
+		writer.join();
+		reader.join();
+		System.out.printf(REPORT_FORMAT, "GENERATIONS", "", generationsPublished);
+		return outcomes;
+	}
+
+	/**
+	 * Changes the Grid and publishes each generation until the test is finished
+	 * @param grid: the Grid being changed
+	 * @param frames: the buffer generations are published to
+	 */
+	private void write(Grid grid, GridFrameBuffer frames) {
+		long generation = 0;
+		while (!finished) {
+			generation++;
+			int numberOfChanges = listChanges(generation, changedCells);
+			byte state = getState(generation);
+			for (int i = 0; i < numberOfChanges; i++) {
+				int cell = changedCells[i];
+				grid.setState(cell / grid.getNumberOfColumns(), cell % grid.getNumberOfColumns(), state);
+			}
+			frames.recordChanges(changedCells, numberOfChanges);
+			frames.publish(grid, generation);
+		}
+		generationsPublished = generation;
+	}
+
+	/**
+	 * Takes frames at irregular intervals until the test is finished, checking each against the Grid
+	 * the writer must have held at the frame's generation
+	 * @param frames: the buffer frames are taken from
+	 * @param outcomes: the number of frames observed with each outcome
+	 */
+	private void read(GridFrameBuffer frames, long[] outcomes) {
+		byte[] expected = new byte[numberOfCells];
+		byte[] drawn = new byte[numberOfCells];
+		int[] replayedChanges = new int[numberOfCells];
+		long replayedGeneration = 0;
+		long lastGeneration = 0;
+		SplitMix64 delays = new SplitMix64(1);
+		while (!finished) {
+			GridFrame frame = frames.takeFrame();
+			if (frame == null) continue;
+			long generation = frame.getGeneration();
+			if (generation <= lastGeneration) {
+				outcomes[Outcome.STALE.ordinal()]++;
+				continue;
+			}
+			for (; replayedGeneration < generation; replayedGeneration++) {
+				int numberOfChanges = listChanges(replayedGeneration + 1, replayedChanges);
+				byte state = getState(replayedGeneration + 1);
+				for (int i = 0; i < numberOfChanges; i++) {
+					expected[replayedChanges[i]] = state;
+				}
+			}
+			redraw(frame, drawn);
+			outcomes[classify(frame, expected, drawn).ordinal()]++;
+			lastGeneration = generation;
+			waitFor(delays.nextInt(MAXIMUM_READER_DELAY));
+		}
+	}
+
+	/**
+	 * Redraws the Cells a frame lists, or every Cell if it lists too many, as the display would
+	 * @param frame: the frame taken
+	 * @param drawn: the states drawn so far, which are updated
+	 */
+	private void redraw(GridFrame frame, byte[] drawn) {
+		int numberOfChangedCells = frame.getNumberOfChangedCells();
+		if (numberOfChangedCells == GridFrame.ALL_CELLS_CHANGED) {
+			for (int cell = 0; cell < numberOfCells; cell++) {
+				drawn[cell] = (byte) frame.getState(cell);
+			}
+			return;
+		}
+		int[] changedCells = frame.getChangedCells();
+		for (int i = 0; i < numberOfChangedCells; i++) {
+			drawn[changedCells[i]] = (byte) frame.getState(changedCells[i]);
+		}
+	}
+
+	/**
+	 * @param frame: the frame taken
+	 * @param expected: the states the writer held at the frame's generation
+	 * @param drawn: the states drawn after redrawing the frame's changed Cells
+	 * @return the outcome of taking the frame
+	 */
+	private Outcome classify(GridFrame frame, byte[] expected, byte[] drawn) {
+		Outcome outcome = Outcome.COMPLETE;
+		for (int cell = 0; cell < numberOfCells; cell++) {
+			if (frame.getState(cell) != expected[cell]) return Outcome.TORN;
+			if (drawn[cell] != expected[cell]) outcome = Outcome.MISSED_CHANGES;
+		}
+		return outcome;
+	}
+
+	/**
+	 * Lists the Cells the writer changes in a generation; Cells may be listed more than once
+	 * @param generation: the generation
+	 * @param cells: array receiving the indices of the Cells
+	 * @return the number of Cells listed
+	 */
+	private int listChanges(long generation, int[] cells) {
+		SplitMix64 random = new SplitMix64(SplitMix64.mix64(generation));
+		int numberOfChanges = generation % BURST_PERIOD == 0 ? numberOfCells / 2 : 1 + random.nextInt(MAXIMUM_CHANGES);
+		for (int i = 0; i < numberOfChanges; i++) {
+			cells[i] = random.nextInt(numberOfCells);
+		}
+		return numberOfChanges;
+	}
+
+	/**
+	 * @param generation: a generation
+	 * @return the state the writer gives the Cells it changes in the generation
+	 */
+	private byte getState(long generation) {
+		return (byte) (1 + generation % NUMBER_OF_STATES);
+	}
+
+	/**
+	 * Spins for roughly the given number of iterations, so the reader sometimes falls behind the writer
+	 * @param iterations: the number of iterations
+	 */
+	private void waitFor(int iterations) {
+		for (int i = 0; i < iterations && !finished; i++) {
+			Thread.onSpinWait();
+		}
+	}
+
+	/**
+	 * The ways a frame taken by the reader can turn out
+	 */
+	private enum Outcome {
+		COMPLETE(true), TORN(false), STALE(false), MISSED_CHANGES(false);
+
+		private final boolean acceptable;
+
+		Outcome(boolean acceptable) {
+			this.acceptable = acceptable;
+		}
+
+		/**
+		 * Prints the number of frames observed with each outcome
+		 * @param outcomes: the number of frames observed with each outcome
+		 */
+		static void report(long[] outcomes) {
+			for (Outcome outcome : values()) {
+				System.out.printf(REPORT_FORMAT, outcome, outcome.acceptable ? "ACCEPTABLE" : "FORBIDDEN", outcomes[outcome.ordinal()]);
+			}
+		}
+
+		/**
+		 * @param outcomes: the number of frames observed with each outcome
+		 * @return the number of frames observed with a forbidden outcome
+		 */
+		static long countForbidden(long[] outcomes) {
+			long forbidden = 0;
+			for (Outcome outcome : values()) {
+				if (!outcome.acceptable) forbidden += outcomes[outcome.ordinal()];
+			}
+			return forbidden;
+		}
+	}
+
+}
@@ -0,0 +1,66 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import model.simulations.Simulation;
+import preprocessing.SimulationGenerator;
+
+/**
+ * 
+ * Measures how long loading takes: streaming XML into a Grid with XMLParser, then building the
+ * Simulation with SimulationGenerator, for every Simulation, grid type, cell shape, and grid size
+ * 
+ * @author Stephen
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class GeneratorBenchmark {
+
+	@Param({"GameOfLife", "SpreadingFire", "Segregation", "Sugarscape"})
+	public String simulationType;
+
+	@Param({"GridStandard", "GridToroidal"})
+	public String gridType;
+
+	@Param({"CellSquare", "CellTriangle"})
+	public String cellType;
+
+	@Param({"64", "256", "1024", "4096"})
+	public int size;
+
+	private byte[] xml;
+
+	/**
+	 * Writes the XML once
+	 */
+	@Setup
+	public void createXML() {
+		xml = Scenarios.createXML(simulationType, gridType, cellType, size);
+	}
+
+	/**
+	 * Parses the XML and builds the Simulation it describes
+	 */
+	@Benchmark
+	public Simulation generateSimulation() {
+		return new SimulationGenerator(Scenarios.parse(xml)).getSimulation();
+	}
+
+}
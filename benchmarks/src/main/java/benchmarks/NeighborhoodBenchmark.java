@@ -0,0 +1,114 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import model.grid.Grid;
+import model.grid.Neighborhood;
+import model.grid.NeighborhoodType;
+
+/**
+ * 
+ * Measures the cost of looking up neighbors, the innermost operation of every Simulation, by
+ * sweeping the whole Grid once per operation. Scores are per sweep; divide by size * size for
+ * the cost per Cell
+ * 
+ * @author Stephen
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class NeighborhoodBenchmark {
+
+	private static final int ALIVE = 1;
+	private static final int DEAD = 0;
+	private static final int BITS_PER_STATE = 1;
+
+	@Param({"GridStandard", "GridToroidal"})
+	public String gridType;
+
+	@Param({"MOORE", "VON_NEUMANN", "CARDINAL"})
+	public NeighborhoodType neighborhoodType;
+
+	@Param({"64", "256", "1024", "4096"})
+	public int size;
+
+	private Grid grid;
+	private Neighborhood neighborhood;
+	private int[] neighbors;
+	private int[] keys;
+
+	/**
+	 * Builds a Grid with a third of its Cells alive
+	 */
+	@Setup
+	public void createGrid() {
+		grid = Scenarios.createGrid(gridType, size);
+		Scenarios.fillGrid(grid, ALIVE, DEAD);
+		neighborhood = grid.getNeighborhood(neighborhoodType);
+		neighbors = new int[neighborhood.size()];
+		keys = new int[size];
+	}
+
+	/**
+	 * Counts the live neighbors of every Cell, as Game of Life and Spreading Fire do
+	 */
+	@Benchmark
+	public long countNeighborsInState() {
+		long total = 0;
+		for (int row = 0; row < size; row++) {
+			for (int column = 0; column < size; column++) {
+				total += grid.countNeighborsInState(row, column, neighborhood, ALIVE);
+			}
+		}
+		return total;
+	}
+
+	/**
+	 * Packs the neighborhood of every Cell into a lookup table key a row at a time, as Spreading Fire does
+	 */
+	@Benchmark
+	public long packNeighborhoods() {
+		long total = 0;
+		for (int row = 0; row < size; row++) {
+			grid.packNeighborhoods(row, neighborhood, BITS_PER_STATE, keys);
+			for (int column = 0; column < size; column++) {
+				total += keys[column];
+			}
+		}
+		return total;
+	}
+
+	/**
+	 * Collects the neighbor indices of every Cell, as Segregation and Sugarscape do
+	 */
+	@Benchmark
+	public long getNeighborIndices() {
+		long total = 0;
+		for (int row = 0; row < size; row++) {
+			for (int column = 0; column < size; column++) {
+				int count = grid.getNeighborIndices(row, column, neighborhood, neighbors);
+				for (int i = 0; i < count; i++) {
+					total += neighbors[i];
+				}
+			}
+		}
+		return total;
+	}
+
+}
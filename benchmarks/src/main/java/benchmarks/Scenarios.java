@@ -0,0 +1,133 @@
+package benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import model.cells.CellStates;
+import model.grid.Grid;
+import preprocessing.SimulationConfiguration;
+import preprocessing.SimulationRegistry;
+import preprocessing.XMLParser;
+
+/**
+ * 
+ * Builds the inputs shared by the benchmarks: XML in the same format as the files in
+ * src/resources, filled with random initial states, and empty Grids of a given type. Every
+ * scenario is seeded, including the Simulation's own random number generator, so each run of a 
+ * benchmark computes the same generations
+ * 
+ * @author Stephen
+ *
+ */
+final class Scenarios {
+
+	private static final long SEED = 42;
+	private static final String PROBABILITY_CATCH = "0.5";
+	private static final String THRESHOLD = "0.3";
+
+	private Scenarios() {
+	}
+
+	/**
+	 * Writes XML describing a square Simulation with random initial states
+	 * @param simulationType: GameOfLife, SpreadingFire, Segregation, or Sugarscape
+	 * @param gridType: GridStandard or GridToroidal
+	 * @param cellType: CellSquare or CellTriangle
+	 * @param size: the number of rows and columns in the Grid
+	 * @return the XML, encoded as UTF-8
+	 */
+	static byte[] createXML(String simulationType, String gridType, String cellType, int size) {
+		StringBuilder xml = new StringBuilder(size * (size + 12) + 512);
+		xml.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<simulation>\n");
+		appendValue(xml, "simulationType", simulationType);
+		appendValue(xml, "numberOfRows", Integer.toString(size));
+		appendValue(xml, "numberOfColumns", Integer.toString(size));
+		appendValue(xml, "gridType", gridType);
+		appendValue(xml, "cellType", cellType);
+		appendValue(xml, "probabilityCatch", PROBABILITY_CATCH);
+		appendValue(xml, "threshold", THRESHOLD);
+		appendValue(xml, "seed", Long.toString(SEED));
+		xml.append("<rows>\n");
+		Random random = new Random(SEED);
+		for (int i = 0; i < size; i++) {
+			xml.append("<row>");
+			for (int j = 0; j < size; j++) {
+				xml.append(getRandomState(simulationType, random));
+			}
+			xml.append("</row>\n");
+		}
+		xml.append("</rows>\n</simulation>\n");
+		return xml.toString().getBytes(StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Parses XML written by createXML
+	 * @param xml: the XML, encoded as UTF-8
+	 * @return the configuration it describes
+	 */
+	static SimulationConfiguration parse(byte[] xml) {
+		return new XMLParser().parseXML(new ByteArrayInputStream(xml));
+	}
+
+	/**
+	 * Builds an empty Grid of the given type, the same way XMLParser does
+	 * @param gridType: GridStandard or GridToroidal
+	 * @param size: the number of rows and columns in the Grid
+	 * @return the Grid
+	 */
+	static Grid createGrid(String gridType, int size) {
+		return SimulationRegistry.getDefault().getGridFactory(gridType).createGrid(size, size);
+	}
+
+	/**
+	 * Fills a Grid with random states, a third of them in the given state
+	 * @param grid: the Grid to fill
+	 * @param state: the state a third of the Cells are given
+	 * @param otherState: the state the remaining Cells are given
+	 */
+	static void fillGrid(Grid grid, int state, int otherState) {
+		Random random = new Random(SEED);
+		for (int row = 0; row < grid.getNumberOfRows(); row++) {
+			for (int column = 0; column < grid.getNumberOfColumns(); column++) {
+				grid.setState(row, column, random.nextInt(3) == 0 ? state : otherState);
+			}
+		}
+	}
+
+	/**
+	 * @param simulationType: the Simulation the state is for
+	 * @param random: source of randomness
+	 * @return a random initial state: a third of Game of Life Cells alive, a forest with a few
+	 * fires for Spreading Fire, a tenth of the Cells empty for Segregation, and any amount of sugar
+	 * for Sugarscape
+	 */
+	private static int getRandomState(String simulationType, Random random) {
+		switch (simulationType) {
+		case "GameOfLife":
+			return random.nextInt(3) == 0 ? CellStates.GAME_OF_LIFE_ALIVE.value() : CellStates.GAME_OF_LIFE_DEAD.value();
+		case "SpreadingFire":
+			int roll = random.nextInt(100);
+			if (roll == 0) return CellStates.SPREADING_FIRE_BURNING.value();
+			return roll < 10 ? CellStates.SPREADING_FIRE_EMPTY.value() : CellStates.SPREADING_FIRE_TREE.value();
+		case "Segregation":
+			if (random.nextInt(10) == 0) return CellStates.SEGREGATION_EMPTY.value();
+			return random.nextBoolean() ? CellStates.SEGREGATION_X.value() : CellStates.SEGREGATION_O.value();
+		case "Sugarscape":
+			return random.nextInt(CellStates.SUGARSCAPE_MAX.value() + 1);
+		default:
+			throw new IllegalArgumentException(simulationType);
+		}
+	}
+
+	/**
+	 * Appends an element holding the given text
+	 * @param xml: the XML being written
+	 * @param tag: the element's tag
+	 * @param value: the element's text
+	 */
+	private static void appendValue(StringBuilder xml, String tag, String value) {
+		xml.append('<').append(tag).append('>').append(value).append("</").append(tag).append(">\n");
+	}
+
+}
@@ -0,0 +1,67 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import model.simulations.Simulation;
+import preprocessing.SimulationGenerator;
+
+/**
+ * 
+ * Measures how many generations per second each Simulation computes with updateGrid, for every
+ * Simulation, grid type, and grid size. The Simulation is rebuilt before each iteration so that
+ * fires burning out or neighborhoods settling do not make later iterations cheaper
+ * 
+ * @author Stephen
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class SimulationBenchmark {
+
+	@Param({"GameOfLife", "SpreadingFire", "Segregation", "Sugarscape"})
+	public String simulationType;
+
+	@Param({"GridStandard", "GridToroidal"})
+	public String gridType;
+
+	@Param({"64", "256", "1024", "4096"})
+	public int size;
+
+	private Simulation simulation;
+
+	/**
+	 * Generates a fresh Simulation from seeded random XML
+	 */
+	@Setup(Level.Iteration)
+	public void createSimulation() {
+		byte[] xml = Scenarios.createXML(simulationType, gridType, "CellSquare", size);
+		simulation = new SimulationGenerator(Scenarios.parse(xml)).getSimulation();
+	}
+
+	/**
+	 * Computes one generation
+	 */
+	@Benchmark
+	public Simulation updateGrid() {
+		simulation.updateGrid();
+		return simulation;
+	}
+
+}
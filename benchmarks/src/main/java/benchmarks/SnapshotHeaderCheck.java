@@ -0,0 +1,103 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import model.simulations.Simulation;
+import persistence.SimulationSnapshot;
+import preprocessing.SimulationConfiguration;
+import preprocessing.SimulationGenerator;
+
+/**
+ *
+ * Checks that SimulationSnapshot rejects a corrupted header instead of hanging or misreading it: a
+ * Game of Life snapshot is saved, then its bits per state byte is overwritten with every value other
+ * than 1, 2, 4 and 8, and each corrupted file must fail to load with an IllegalArgumentException.
+ * Every load runs on its own thread, so a load that never returns is reported as HUNG rather than
+ * stalling the check
+ *
+ * Usage: java -cp target/benchmarks.jar benchmarks.SnapshotHeaderCheck
+ *
+ * @author Stephen
+ *
+ */
+public class SnapshotHeaderCheck {
+
+	private static final int SIZE = 16;
+	private static final long TIMEOUT_MILLISECONDS = 2000;
+	private static final byte SAVED_BITS_PER_STATE = 1;
+	private static final String REPORT_FORMAT = "%-8s bits per state %d: %s%n";
+
+	/**
+	 * Runs the check and exits with a non-zero status if any corrupted header was not rejected
+	 * @param args: unused
+	 */
+	public static void main(String[] args) throws IOException, InterruptedException {
+		SimulationConfiguration configuration = Scenarios.parse(Scenarios.createXML("GameOfLife", "GridStandard", "CellSquare", SIZE));
+		Simulation simulation = new SimulationGenerator(configuration).getSimulation();
+		Path original = Files.createTempFile("header", SimulationSnapshot.FILE_EXTENSION);
+		Path corrupted = Files.createTempFile("corrupted", SimulationSnapshot.FILE_EXTENSION);
+		int failures = 0;
+		try {
+			SimulationSnapshot.capture(simulation, configuration.getValues()).save(original);
+			byte[] bytes = Files.readAllBytes(original);
+			int position = getBitsPerStatePosition(bytes, simulation.getStateSize());
+			if (bytes[position] != SAVED_BITS_PER_STATE) {
+				System.out.printf(REPORT_FORMAT, "FAILED", bytes[position], "not found where expected");
+				System.exit(1);
+			}
+			for (int value = Byte.MIN_VALUE; value <= Byte.MAX_VALUE; value++) {
+				if (value == 1 || value == 2 || value == 4 || value == 8) continue;
+				bytes[position] = (byte) value;
+				Files.write(corrupted, bytes);
+				String outcome = load(corrupted);
+				if (outcome != null) {
+					System.out.printf(REPORT_FORMAT, "FAILED", value, outcome);
+					failures++;
+				}
+			}
+		} finally {
+			Files.deleteIfExists(original);
+			Files.deleteIfExists(corrupted);
+		}
+		System.out.printf("%d corrupted headers not rejected%n", failures);
+		if (failures > 0) System.exit(1);
+	}
+
+	/**
+	 * The bits per state byte is the last byte of the header; it is followed by the packed states, which
+	 * take one byte per 8 Cells at 1 bit per state, then the length of the Simulation's state and the state
+	 * @param bytes: the saved snapshot
+	 * @param stateSize: the number of bytes of the Simulation's state
+	 * @return the position of the bits per state byte
+	 */
+	private static int getBitsPerStatePosition(byte[] bytes, int stateSize) {
+		int packedSize = (SIZE * SIZE + Byte.SIZE - 1) / Byte.SIZE;
+		return bytes.length - stateSize - Integer.BYTES - packedSize - Byte.BYTES;
+	}
+
+	/**
+	 * Loads a corrupted snapshot on a separate thread
+	 * @param path: the corrupted snapshot
+	 * @return null if loading failed with an IllegalArgumentException; a description of what happened otherwise
+	 */
+	private static String load(Path path) throws InterruptedException {
+		String[] outcome = {"HUNG"};
+		Thread loader = new Thread(() -> {
+			try {
+				SimulationSnapshot.load(path);
+				outcome[0] = "loaded";
+			} catch (IllegalArgumentException e) {
+				outcome[0] = null;
+			} catch (Throwable e) {
+				outcome[0] = e.toString();
+			}
+		}, "loader");
+		loader.setDaemon(true);
+		loader.start();
+		loader.join(TIMEOUT_MILLISECONDS);
+		return loader.isAlive() ? "HUNG" : outcome[0];
+	}
+
+}
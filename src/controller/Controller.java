@@ -1,22 +1,24 @@
 package controller;
 
 import java.io.File;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Observable;
 import java.util.Observer;
 
-import org.w3c.dom.Document;
-
 import errorHandling.ErrorHandler;
-import javafx.animation.KeyFrame;
-import javafx.animation.Timeline;
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 import javafx.stage.FileChooser.ExtensionFilter;
-import javafx.util.Duration;
-import model.grid.Grid;
+import model.grid.GridFrame;
+import model.simulations.GameOfLifeHashlife;
 import model.simulations.Simulation;
+import persistence.CheckpointScheduler;
+import persistence.SimulationSnapshot;
+import preprocessing.SimulationConfiguration;
 import preprocessing.SimulationGenerator;
 import preprocessing.XMLParser;
 import view.GUI;
@@ -24,7 +26,9 @@ import view.Toolbar;
 
 /**
  * 
- * Manages animation of Simulations
+ * Manages animation of Simulations. Each Simulation runs on its own thread through a SimulationRunner at a
+ * rate set with the Toolbar's speed controls, while the JavaFX thread draws the latest published frame
+ * once per pulse, skipping the generations computed in between
  * 
  * @author Stephen
  *
@@ -33,21 +37,30 @@ public class Controller implements Observer {
 
 	private final String ERROR_MESSAGE_INVALID_XML_DATA = "Invalid Grid Type, Cell Type, or Simulation Entered";
 	private final String ERROR_MESSAGE_INVALID_CONTROLLER_METHOD = "Controller Method Does Not Exist";	
-	private final double MAX_ANIMATION_SPEED = 3.0;
-	private final double MIN_ANIMATION_SPEED = 0.1;
-	private final double ANIMATION_SPEED_INTERVAL = 0.1;
-	private final double DELAY = 1000;
+	private final String ERROR_MESSAGE_COMMAND_FAILED = "Command Could Not Be Completed";
+	private final String ERROR_MESSAGE_FAST_FORWARD_UNSUPPORTED = "Fast Forward Requires a Game of Life Simulation Using the Hashlife Engine";
+	private final String ERROR_MESSAGE_NO_SIMULATION = "No Simulation Has Been Selected";
+	private final String ERROR_MESSAGE_SNAPSHOT_NOT_SAVED = "Snapshot Could Not Be Saved";
+	private final String ERROR_MESSAGE_SNAPSHOT_NOT_LOADED = "Snapshot Could Not Be Loaded";
+	private final String SNAPSHOT_FILE_PATTERN = "*" + SimulationSnapshot.FILE_EXTENSION;
+	private final int FAST_FORWARD_EXPONENT = 6;
+	private final double[] TICKS_PER_SECOND = {1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, Double.POSITIVE_INFINITY};
+	private final String TICKS_PER_SECOND_FORMAT = "%.0f ticks/s";
+	private final String UNTHROTTLED_SPEED = "Max ticks/s";
 	private final double GRID_WIDTH = 500;
 	private final double GRID_HEIGHT = 500;
 	private Stage stage;
 	private GUI view;
 	private Toolbar toolbar;
-	private Timeline timeline;
+	private AnimationTimer frameTimer;
+	private SimulationRunner runner;
 	private XMLParser xmlParser;
 	private Simulation simulation;
+	private Map<String, String> parameters;
+
+	private final Map<String, Runnable> commands = new HashMap<>();
 
-	private boolean simulationInProgress;
-	private double animnationSpeed;
+	private int speed;
 
 	/**
 	 * Instantiates Controller that manages animation of Simulations
@@ -55,54 +68,101 @@ public class Controller implements Observer {
 	 */
 	public Controller(Stage stage) {
 		this.stage = stage;
-		simulationInProgress = false;
-		animnationSpeed = 1.0;
+		speed = 0;
 		xmlParser = new XMLParser();
 		toolbar = new Toolbar(stage.widthProperty(), stage.heightProperty());
 		view = new GUI(stage.getWidth(), stage.getHeight(), toolbar);
 		stage.setScene(view.getScene());
 		toolbar.addObserver(this);
+		toolbar.setSpeedText(getSpeedText());
+		initializeCommands();
+		initializeFrameTimer();
 	}
 
 	/**
-	 * Renders the given Grid and starts the animation
-	 * @param grid: the Simulation's Grid of Cells
+	 * Maps the command sent by each Toolbar button to the Controller method that carries it out
 	 */
-	private void startNewSimulation(Grid grid) {
-		view.setGridDisplay(grid);
-		initializeTimeline();
-		timeline.play();
-		simulationInProgress = true;
+	private void initializeCommands() {
+		commands.put("selectXMLFile", this::selectXMLFile);
+		commands.put("pauseOrResumeAnimation", this::pauseOrResumeAnimation);
+		commands.put("stopAnimation", this::stopAnimation);
+		commands.put("speedUpAnimation", this::speedUpAnimation);
+		commands.put("slowDownAnimation", this::slowDownAnimation);
+		commands.put("stepAnimation", this::stepAnimation);
+		commands.put("fastForwardAnimation", this::fastForwardAnimation);
+		commands.put("saveSnapshot", this::saveSnapshot);
+		commands.put("loadSnapshot", this::loadSnapshot);
 	}
 
 	/**
-	 * Initializes the Timeline
+	 * Renders the Simulation's Grid and starts the animation on a new SimulationRunner, stopping
+	 * the runner of the previous Simulation
+	 * @param cellType: the type of Cell used to display the Grid
+	 * @param checkpoints: the Simulation's checkpoint scheduler, or null if it is not checkpointed
 	 */
-	private void initializeTimeline() {
-		timeline = new Timeline();
-		timeline.setCycleCount(Timeline.INDEFINITE);
-		KeyFrame animationLoop = new KeyFrame(Duration.millis(DELAY), e -> simulation.updateGrid());
-		timeline.getKeyFrames().add(animationLoop);
+	private void startNewSimulation(String cellType, CheckpointScheduler checkpoints) {
+		if (runner != null) runner.stop();
+		view.setGridDisplay(simulation, cellType, GRID_WIDTH, GRID_HEIGHT);
+		runner = new SimulationRunner(simulation, checkpoints, this::reportError);
+		runner.setTicksPerSecond(TICKS_PER_SECOND[speed]);
+		runner.start();
+		runner.resume();
 	}
 
 	/**
-	 * Speeds up animation of the Simulation
+	 * Initializes the timer that draws the latest frame published by the runner on every pulse
+	 * of the JavaFX thread
+	 */
+	private void initializeFrameTimer() {
+		frameTimer = new AnimationTimer() {
+			@Override
+			public void handle(long now) {
+				if (runner == null) return;
+				GridFrame frame = runner.takeFrame();
+				if (frame != null) view.drawFrame(frame);
+			}
+		};
+		frameTimer.start();
+	}
+
+	/**
+	 * Reports an error raised on the runner's thread on the JavaFX thread
+	 * @param errorMessage: message to display to the user
+	 */
+	private void reportError(String errorMessage) {
+		Platform.runLater(() -> ErrorHandler.handleError(errorMessage));
+	}
+
+	/**
+	 * @return description of the speed the Simulation runs at
+	 */
+	private String getSpeedText() {
+		double ticksPerSecond = TICKS_PER_SECOND[speed];
+		return Double.isInfinite(ticksPerSecond) ? UNTHROTTLED_SPEED : String.format(TICKS_PER_SECOND_FORMAT, ticksPerSecond);
+	}
+
+	/**
+	 * Sets the number of ticks per second the Simulation runs at
+	 * @param newSpeed: index of the new rate in TICKS_PER_SECOND
+	 */
+	private void setSpeed(int newSpeed) {
+		speed = Math.max(0, Math.min(TICKS_PER_SECOND.length - 1, newSpeed));
+		toolbar.setSpeedText(getSpeedText());
+		if (runner != null) runner.setTicksPerSecond(TICKS_PER_SECOND[speed]);
+	}
+
+	/**
+	 * Speeds up animation of the Simulation, up to as fast as possible
 	 */
 	private void speedUpAnimation() {
-		if (animnationSpeed <= MAX_ANIMATION_SPEED && simulationInProgress) {
-			animnationSpeed += ANIMATION_SPEED_INTERVAL;
-			timeline.setRate(animnationSpeed);
-		}
+		setSpeed(speed + 1);
 	}
 
 	/**
-	 * Slows down animation of the Simulation
+	 * Slows down animation of the Simulation, down to one tick per second
 	 */
 	private void slowDownAnimation() {
-		if (animnationSpeed >= MIN_ANIMATION_SPEED && simulationInProgress) {
-			animnationSpeed -= ANIMATION_SPEED_INTERVAL;
-			timeline.setRate(animnationSpeed);
-		}
+		setSpeed(speed - 1);
 	}
 
 	/**
@@ -110,28 +170,50 @@ public class Controller implements Observer {
 	 * Resumes the animation if it is paused
 	 */
 	private void pauseOrResumeAnimation() {
-		if (simulationInProgress)
-			timeline.pause();
+		if (runner == null) return;
+		if (runner.isRunning())
+			runner.pause();
 		else
-			timeline.play();
-		simulationInProgress = !simulationInProgress;
+			runner.resume();
 	}
 
 	/**
 	 * Steps to the next frame of the animation
 	 */
 	private void stepAnimation() {
-		timeline.pause();
-		simulationInProgress = false;
-		simulation.updateGrid();
+		if (runner == null) return;
+		runner.pause();
+		runner.step();
+	}
+
+	/**
+	 * @param file: a file
+	 * @return the file's name without its extension
+	 */
+	private String getBaseName(File file) {
+		String fileName = file.getName();
+		int extension = fileName.lastIndexOf('.');
+		return extension < 0 ? fileName : fileName.substring(0, extension);
+	}
+
+	/**
+	 * Pauses the animation and jumps 2^FAST_FORWARD_EXPONENT generations ahead
+	 */
+	private void fastForwardAnimation() {
+		if (!(simulation instanceof GameOfLifeHashlife)) {
+			ErrorHandler.handleError(ERROR_MESSAGE_FAST_FORWARD_UNSUPPORTED);
+			return;
+		}
+		GameOfLifeHashlife hashlife = (GameOfLifeHashlife) simulation;
+		runner.pause();
+		runner.execute(() -> hashlife.fastForward(FAST_FORWARD_EXPONENT));
 	}
 
 	/**
 	 * Stops the animation
 	 */
 	private void stopAnimation() {
-		timeline.stop();
-		simulationInProgress = false;
+		if (runner != null) runner.pause();
 	}
 
 	/**
@@ -141,7 +223,7 @@ public class Controller implements Observer {
 		FileChooser fileChooser = new FileChooser();
 		fileChooser.getExtensionFilters().addAll(new ExtensionFilter("XML Files", "*.xml"));
 		File selectedFile = fileChooser.showOpenDialog(stage);
-		initializeNewSimulation(selectedFile);
+		if (selectedFile != null) initializeNewSimulation(selectedFile);
 	}
 
 	/**
@@ -149,30 +231,81 @@ public class Controller implements Observer {
 	 * @param file: file containing Simulation parameters
 	 */
 	private void initializeNewSimulation(File file) {
-		Document document = xmlParser.parseXMLFile(file);
+		SimulationConfiguration configuration;
+		try {
+			configuration = xmlParser.parseXMLFile(file);
+		} catch (IllegalArgumentException e) {
+			ErrorHandler.handleError(e.getMessage());
+			return;
+		}
 		try {
-			SimulationGenerator generator = new SimulationGenerator(document, GRID_WIDTH, GRID_HEIGHT);
+			SimulationGenerator generator = new SimulationGenerator(configuration);
 			simulation = generator.getSimulation();
-			Grid grid = simulation.getGrid();
-			startNewSimulation(grid);
+			parameters = configuration.getValues();
+			startNewSimulation(generator.getCellType(), CheckpointScheduler.fromParameters(simulation, parameters, getBaseName(file)));
 		} catch (Exception e) {
 			ErrorHandler.handleError(ERROR_MESSAGE_INVALID_XML_DATA);
 		}
 	}
 
+	/**
+	 * Pauses the animation and saves the current generation of the Simulation to a snapshot file selected by 
+	 * user; The snapshot is captured and written on the runner's thread
+	 */
+	private void saveSnapshot() {
+		if (simulation == null) {
+			ErrorHandler.handleError(ERROR_MESSAGE_NO_SIMULATION);
+			return;
+		}
+		runner.pause();
+		FileChooser fileChooser = new FileChooser();
+		fileChooser.getExtensionFilters().addAll(new ExtensionFilter("Snapshot Files", SNAPSHOT_FILE_PATTERN));
+		File selectedFile = fileChooser.showSaveDialog(stage);
+		if (selectedFile == null) return;
+		Simulation savedSimulation = simulation;
+		Map<String, String> savedParameters = parameters;
+		runner.execute(() -> {
+			try {
+				SimulationSnapshot.capture(savedSimulation, savedParameters).save(selectedFile.toPath());
+			} catch (IOException | IllegalArgumentException e) {
+				reportError(ERROR_MESSAGE_SNAPSHOT_NOT_SAVED);
+			}
+		});
+	}
+
+	/**
+	 * Reads in snapshot file selected by user to resume the Simulation it was saved from; Checkpoints are
+	 * snapshots too, so this also resumes a checkpointed run from any of its checkpoints
+	 */
+	private void loadSnapshot() {
+		FileChooser fileChooser = new FileChooser();
+		fileChooser.getExtensionFilters().addAll(new ExtensionFilter("Snapshot Files", SNAPSHOT_FILE_PATTERN));
+		File selectedFile = fileChooser.showOpenDialog(stage);
+		if (selectedFile == null) return;
+		try {
+			SimulationSnapshot snapshot = SimulationSnapshot.load(selectedFile.toPath());
+			simulation = snapshot.restoreSimulation();
+			parameters = snapshot.getParameters();
+			startNewSimulation(snapshot.getCellType(), CheckpointScheduler.fromParameters(simulation, parameters, getBaseName(selectedFile)));
+		} catch (Exception e) {
+			ErrorHandler.handleError(ERROR_MESSAGE_SNAPSHOT_NOT_LOADED);
+		}
+	}
+
 	/**
 	 * Responds to clicks of Toolbar buttons
 	 */
 	@Override
 	public void update(Observable o, Object arg) {
-		String command = (String) arg;
-		Method methodToCall = null;
-		try {
-			methodToCall = this.getClass().getDeclaredMethod(command);
-			methodToCall.invoke(this);
-		} catch (NoSuchMethodException | SecurityException | IllegalAccessException | IllegalArgumentException
-				| InvocationTargetException e) {
+		Runnable command = commands.get((String) arg);
+		if (command == null) {
 			ErrorHandler.handleError(ERROR_MESSAGE_INVALID_CONTROLLER_METHOD);
+			return;
+		}
+		try {
+			command.run();
+		} catch (RuntimeException e) {
+			ErrorHandler.handleError(ERROR_MESSAGE_COMMAND_FAILED);
 		}
 	}
 
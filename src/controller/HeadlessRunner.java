@@ -0,0 +1,108 @@
+package controller;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.Map;
+
+import model.grid.Grid;
+import model.simulations.Simulation;
+import persistence.CheckpointScheduler;
+import persistence.SimulationSnapshot;
+import preprocessing.SimulationConfiguration;
+import preprocessing.SimulationGenerator;
+import preprocessing.XMLParser;
+
+/**
+ *
+ * Runs Simulations without a display: loads each given XML file, or resumes each given snapshot file,
+ * advances its Simulation until it has computed a given number of generations as fast as possible, and
+ * reports the throughput. Simulations whose XML files enable checkpointing are checkpointed as they run;
+ * with -resume, each XML file whose Simulation has checkpoints resumes from the latest one instead of
+ * starting over. Does not depend on JavaFX, so it can run parameter sweeps on machines without a display
+ *
+ * Usage: java controller.HeadlessRunner [-resume] numberOfGenerations file.xml|file.snapshot [file.xml|file.snapshot ...]
+ *
+ * @author Stephen
+ *
+ */
+public class HeadlessRunner {
+
+	private static final String USAGE = "Usage: java controller.HeadlessRunner [-resume] numberOfGenerations file.xml|file.snapshot [file.xml|file.snapshot ...]";
+	private static final String RESUME_FLAG = "-resume";
+	private static final String REPORT_FORMAT = "%s (seed %d): %d cells, %d generations in %.3f s (%.1f generations/sec)%n";
+	private static final String RESUME_FORMAT = "%s: resuming from %s%n";
+	private static final double NANOSECONDS_PER_SECOND = 1e9;
+
+	/**
+	 * Runs every XML or snapshot file given after the number of generations
+	 * @param args: an optional -resume flag, then the number of generations followed by one or more XML or snapshot files
+	 */
+	public static void main(String[] args) throws Exception {
+		boolean resume = args.length > 0 && args[0].equals(RESUME_FLAG);
+		int firstArgument = resume ? 1 : 0;
+		if (args.length < firstArgument + 2) {
+			System.err.println(USAGE);
+			System.exit(1);
+		}
+		int generations = Integer.parseInt(args[firstArgument]);
+		XMLParser xmlParser = new XMLParser();
+		for (int i = firstArgument + 1; i < args.length; i++) {
+			File file = new File(args[i]);
+			String name = getBaseName(file);
+			Simulation simulation;
+			Map<String, String> parameters;
+			if (file.getName().endsWith(SimulationSnapshot.FILE_EXTENSION)) {
+				SimulationSnapshot snapshot = SimulationSnapshot.load(file.toPath());
+				simulation = snapshot.restoreSimulation();
+				parameters = snapshot.getParameters();
+			} else {
+				SimulationConfiguration configuration = xmlParser.parseXMLFile(file);
+				Path checkpoint = resume ? CheckpointScheduler.findLatestCheckpoint(configuration.getValues(), name) : null;
+				if (checkpoint != null) {
+					System.out.printf(RESUME_FORMAT, file.getName(), checkpoint);
+					SimulationSnapshot snapshot = SimulationSnapshot.load(checkpoint);
+					simulation = snapshot.restoreSimulation();
+					parameters = snapshot.getParameters();
+				} else {
+					simulation = new SimulationGenerator(configuration).getSimulation();
+					parameters = configuration.getValues();
+				}
+			}
+			CheckpointScheduler checkpoints = CheckpointScheduler.fromParameters(simulation, parameters, name);
+			run(file.getName(), simulation, generations, checkpoints);
+			if (checkpoints != null) checkpoints.close();
+		}
+	}
+
+	/**
+	 * Advances a Simulation until it has computed the given number of generations and prints its throughput
+	 * @param name: name under which the Simulation is reported
+	 * @param simulation: the Simulation to run
+	 * @param generations: the number of generations the Simulation has computed when the run ends
+	 * @param checkpoints: the Simulation's checkpoint scheduler, or null if it is not checkpointed
+	 */
+	private static void run(String name, Simulation simulation, int generations, CheckpointScheduler checkpoints) {
+		Grid grid = simulation.getGrid();
+		long firstGeneration = simulation.getGeneration();
+		long start = System.nanoTime();
+		while (simulation.getGeneration() < generations) {
+			simulation.updateGrid();
+			if (checkpoints != null) checkpoints.checkpointIfDue();
+		}
+		double seconds = (System.nanoTime() - start) / NANOSECONDS_PER_SECOND;
+		long generationsRun = simulation.getGeneration() - firstGeneration;
+		System.out.printf(REPORT_FORMAT, name, simulation.getSeed(), grid.getNumberOfRows() * grid.getNumberOfColumns(),
+				generationsRun, seconds, generationsRun / seconds);
+	}
+
+	/**
+	 * @param file: a file
+	 * @return the file's name without its extension
+	 */
+	private static String getBaseName(File file) {
+		String fileName = file.getName();
+		int extension = fileName.lastIndexOf('.');
+		return extension < 0 ? fileName : fileName.substring(0, extension);
+	}
+
+}
@@ -0,0 +1,241 @@
+package controller;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+import model.grid.Grid;
+import model.grid.GridFrame;
+import model.grid.GridFrameBuffer;
+import model.simulations.Simulation;
+import model.simulations.SimulationListener;
+import persistence.CheckpointScheduler;
+
+/**
+ *
+ * Runs a Simulation on its own thread, so that neither a slow generation nor a fast tick rate holds up
+ * the display. Only this thread touches the Simulation once it has started: commands from the display
+ * are queued and carried out between generations. Every generation is copied into a GridFrameBuffer,
+ * from which the display takes the latest complete generation whenever it is ready to draw, so neither
+ * thread ever waits for the other; Generations published while the display is still drawing are never
+ * drawn, but the Cells they changed are carried over into the next frame it takes
+ *
+ * @author Stephen
+ *
+ */
+public class SimulationRunner implements SimulationListener {
+
+	private static final double NANOSECONDS_PER_SECOND = 1e9;
+	private final String ERROR_MESSAGE_GENERATION_FAILED = "Simulation Stopped: Generation Could Not Be Computed";
+	private final String ERROR_MESSAGE_COMMAND_FAILED = "Command Could Not Be Completed";
+	private final Simulation simulation;
+	private final Consumer<String> errorHandler;
+	private final Thread worker;
+	private final Queue<Runnable> commands = new ConcurrentLinkedQueue<>();
+	private final GridFrameBuffer frames;
+	private long lastPublishedGeneration;
+	private CheckpointScheduler checkpoints;
+	private volatile boolean running;
+	private volatile boolean stopped;
+	private volatile long tickInterval;
+
+	/**
+	 * Instantiates a paused runner for a Simulation; The Simulation must not be used by any other thread
+	 * once the runner has started
+	 * @param simulation: the Simulation to run
+	 * @param checkpoints: the Simulation's checkpoint scheduler, or null if it is not checkpointed; The
+	 * runner closes it when it stops
+	 * @param errorHandler: receives the message of any error that stops the Simulation or its
+	 * checkpoints, on the runner's thread
+	 */
+	public SimulationRunner(Simulation simulation, CheckpointScheduler checkpoints, Consumer<String> errorHandler) {
+		this.simulation = simulation;
+		this.checkpoints = checkpoints;
+		this.errorHandler = errorHandler;
+		Grid grid = simulation.getGrid();
+		frames = new GridFrameBuffer(grid.getNumberOfRows() * grid.getNumberOfColumns());
+		lastPublishedGeneration = simulation.getGeneration();
+		simulation.setListener(this);
+		worker = new Thread(this::run, "simulation-runner");
+		worker.setDaemon(true);
+	}
+
+	/**
+	 * Starts the runner's thread; The Simulation stays paused until resumed
+	 */
+	public void start() {
+		worker.start();
+	}
+
+	/**
+	 * Sets how many generations are computed per second while the Simulation runs
+	 * @param ticksPerSecond: the target rate, or a value that is not positive and finite to run as fast as possible
+	 */
+	public void setTicksPerSecond(double ticksPerSecond) {
+		boolean unthrottled = !(ticksPerSecond > 0) || Double.isInfinite(ticksPerSecond);
+		tickInterval = unthrottled ? 0 : (long) (NANOSECONDS_PER_SECOND / ticksPerSecond);
+		LockSupport.unpark(worker);
+	}
+
+	/**
+	 * Starts computing generations at the target rate
+	 */
+	public void resume() {
+		running = true;
+		LockSupport.unpark(worker);
+	}
+
+	/**
+	 * Stops computing generations after the current one
+	 */
+	public void pause() {
+		running = false;
+	}
+
+	/**
+	 * @return true if the Simulation is computing generations; false if it is paused
+	 */
+	public boolean isRunning() {
+		return running;
+	}
+
+	/**
+	 * Queues a command to be carried out on the runner's thread between generations, whether or not the
+	 * Simulation is paused; Commands may use the Simulation freely
+	 * @param command: the command to carry out
+	 */
+	public void execute(Runnable command) {
+		commands.add(command);
+		LockSupport.unpark(worker);
+	}
+
+	/**
+	 * Computes a single generation on the runner's thread
+	 */
+	public void step() {
+		execute(simulation::updateGrid);
+	}
+
+	/**
+	 * Stops the runner's thread after the current generation and closes the checkpoint scheduler;
+	 * Queued commands that have not been carried out are dropped
+	 */
+	public void stop() {
+		stopped = true;
+		running = false;
+		LockSupport.unpark(worker);
+	}
+
+	/**
+	 * Takes the most recently published frame, if it has not already been taken; Called by the display only
+	 * @return the frame, which the display may draw until it takes the next one, or null if no frame has
+	 * been published since the last one was taken
+	 */
+	public GridFrame takeFrame() {
+		return frames.takeFrame();
+	}
+
+	/**
+	 * Records the Cells that changed, so that the next frame lists every Cell changed since the last frame taken
+	 */
+	@Override
+	public void cellsUpdated(Grid grid, int[] changedCells, int numberOfChangedCells) {
+		frames.recordChanges(changedCells, numberOfChangedCells);
+	}
+
+	/**
+	 * Runs queued commands and computes generations at the target rate until stopped, publishing a
+	 * frame of every generation
+	 */
+	private void run() {
+		long nextTick = System.nanoTime();
+		boolean wasRunning = false;
+		while (!stopped) {
+			runCommands();
+			boolean isRunning = running;
+			long now = System.nanoTime();
+			if (isRunning && !wasRunning) nextTick = now;
+			if (isRunning && now - nextTick >= 0) {
+				advanceSimulation();
+				nextTick = Math.max(nextTick + tickInterval, now);
+			}
+			wasRunning = isRunning;
+			publishFrame();
+			if (!running) LockSupport.park(this);
+			else if (tickInterval > 0) LockSupport.parkNanos(this, nextTick - System.nanoTime());
+		}
+		closeCheckpoints();
+	}
+
+	/**
+	 * Carries out every queued command, reporting any that fail, and saves a checkpoint if the commands
+	 * advanced the Simulation far enough for one to be due
+	 */
+	private void runCommands() {
+		for (Runnable command = commands.poll(); command != null && !stopped; command = commands.poll()) {
+			try {
+				command.run();
+			} catch (RuntimeException e) {
+				errorHandler.accept(ERROR_MESSAGE_COMMAND_FAILED);
+			}
+			checkpointIfDue();
+		}
+	}
+
+	/**
+	 * Computes the next generation and saves a checkpoint if one is due; Pauses the Simulation if the
+	 * generation could not be computed
+	 */
+	private void advanceSimulation() {
+		try {
+			simulation.updateGrid();
+		} catch (RuntimeException e) {
+			running = false;
+			errorHandler.accept(ERROR_MESSAGE_GENERATION_FAILED);
+			return;
+		}
+		checkpointIfDue();
+	}
+
+	/**
+	 * Saves a checkpoint of the Simulation if checkpointing is enabled and a checkpoint is due;
+	 * Disables checkpointing if a checkpoint could not be written
+	 */
+	private void checkpointIfDue() {
+		if (checkpoints == null) return;
+		try {
+			checkpoints.checkpointIfDue();
+		} catch (IllegalStateException e) {
+			errorHandler.accept(e.getMessage());
+			closeCheckpoints();
+		}
+	}
+
+	/**
+	 * Publishes a frame of the current generation if it has changed since the last frame
+	 */
+	private void publishFrame() {
+		long generation = simulation.getGeneration();
+		if (generation == lastPublishedGeneration) return;
+		frames.publish(simulation.getGrid(), generation);
+		lastPublishedGeneration = generation;
+	}
+
+	/**
+	 * Waits for the checkpoint being written, if any, and stops checkpointing; Reports the failure of a
+	 * last checkpoint that was not reported yet
+	 */
+	private void closeCheckpoints() {
+		if (checkpoints == null) return;
+		try {
+			checkpoints.close();
+		} catch (IllegalStateException e) {
+			errorHandler.accept(e.getMessage());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		checkpoints = null;
+	}
+
+}
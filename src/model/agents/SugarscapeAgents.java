@@ -0,0 +1,194 @@
+package model.agents;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import model.random.SplitMix64;
+
+/**
+ * 
+ * Registry of every agent in the Sugarscape Simulation, stored as parallel primitive arrays 
+ * (struct of arrays) rather than one object per agent. Agents are identified by their position in 
+ * the registry, which changes when another agent is removed: the last agent takes the removed agent's
+ * place. A bitmap with one bit per Cell records which Cells hold an agent
+ * 
+ * @author Stephen
+ *
+ */
+public class SugarscapeAgents {
+
+    public static final int MAX_VISION = 6;
+    private static final int BITS_PER_WORD = 64;
+    private final int INITIAL_SUGAR = 4;
+    private final int MINIMUM_SUGAR = 0;
+    private final int MAX_METABOLISM = 6;
+
+    private final SplitMix64 random;
+    private final int[] cells;
+    private final int[] currentSugar;
+    private final byte[] metabolismRates;
+    private final byte[] visions;
+    private final long[] occupiedCells;
+    private int numberOfAgents;
+
+    /**
+     * Instantiates an empty registry
+     * @param numberOfCells: the number of Cells in the Grid, which bounds the number of agents
+     * since each Cell holds at most one agent
+     * @param random: source of the agents' random metabolism rates and visions
+     */
+    public SugarscapeAgents(int numberOfCells, SplitMix64 random) {
+        this.random = random;
+        cells = new int[numberOfCells];
+        currentSugar = new int[numberOfCells];
+        metabolismRates = new byte[numberOfCells];
+        visions = new byte[numberOfCells];
+        occupiedCells = new long[(numberOfCells + BITS_PER_WORD - 1) / BITS_PER_WORD];
+    }
+
+    /**
+     * Places a new agent with a random metabolism rate and vision on an empty Cell
+     * @param cell: index of the Cell
+     * @return the new agent
+     */
+    public int add(int cell) {
+        int agent = numberOfAgents++;
+        cells[agent] = cell;
+        currentSugar[agent] = INITIAL_SUGAR;
+        metabolismRates[agent] = (byte) random.nextInt(MAX_METABOLISM + 1);
+        visions[agent] = (byte) random.nextInt(MAX_VISION + 1);
+        setOccupied(cell, true);
+        return agent;
+    }
+
+    /**
+     * Removes an agent from the registry and its Cell; The last agent in the registry takes its place
+     * @param agent: the agent to be removed
+     */
+    public void remove(int agent) {
+        setOccupied(cells[agent], false);
+        int last = --numberOfAgents;
+        cells[agent] = cells[last];
+        currentSugar[agent] = currentSugar[last];
+        metabolismRates[agent] = metabolismRates[last];
+        visions[agent] = visions[last];
+    }
+
+    /**
+     * Moves an agent to an empty Cell
+     * @param agent: the agent to be moved
+     * @param cell: index of the Cell the agent moves to
+     */
+    public void move(int agent, int cell) {
+        setOccupied(cells[agent], false);
+        cells[agent] = cell;
+        setOccupied(cell, true);
+    }
+
+    /**
+     * @param cell: index of a Cell
+     * @return true if there is an agent on the Cell; false otherwise
+     */
+    public boolean isOccupied(int cell) {
+        return (occupiedCells[cell / BITS_PER_WORD] >>> (cell % BITS_PER_WORD) & 1L) != 0;
+    }
+
+    /**
+     * @return the number of agents in the registry
+     */
+    public int size() {
+        return numberOfAgents;
+    }
+
+    /**
+     * @param agent: an agent
+     * @return index of the Cell the agent is on
+     */
+    public int getCell(int agent) {
+        return cells[agent];
+    }
+
+    /**
+     * @param agent: an agent
+     * @return the agent's vision
+     */
+    public int getVision(int agent) {
+        return visions[agent];
+    }
+
+    /**
+     * 
+     * @param agent: the agent receiving the sugar
+     * @param patchSugar: the amount of sugar to be transferred to the agent
+     */
+    public void takeSugarFromPatch(int agent, int patchSugar) {
+        currentSugar[agent] += patchSugar;
+    }
+
+    /**
+     * Decreases agent's amount of sugar depending on its metabolism rate
+     * @param agent: the agent that metabolizes
+     */
+    public void metabolize(int agent) {
+        currentSugar[agent] = Math.max(MINIMUM_SUGAR, currentSugar[agent] - metabolismRates[agent]);
+    }
+
+    /**
+     * Indicates whether agent's amount of sugar has been completely depleted
+     * @param agent: an agent
+     * @return true if agent will die; false otherwise
+     */
+    public boolean willDie(int agent) {
+        return currentSugar[agent] == 0;
+    }
+
+    /**
+     * @return the number of bytes writeState writes
+     */
+    public int getStateSize() {
+        return Integer.BYTES + numberOfAgents * (2 * Integer.BYTES + 2 * Byte.BYTES) + SplitMix64.STATE_SIZE;
+    }
+
+    /**
+     * Writes the agent table: the number of agents, then the Cell, sugar, metabolism rate and vision
+     * of every agent column by column, then the state of the agents' random stream
+     * @param buffer: buffer receiving getStateSize bytes
+     */
+    public void writeState(ByteBuffer buffer) {
+        buffer.putInt(numberOfAgents);
+        buffer.asIntBuffer().put(cells, 0, numberOfAgents).put(currentSugar, 0, numberOfAgents);
+        buffer.position(buffer.position() + 2 * Integer.BYTES * numberOfAgents);
+        buffer.put(metabolismRates, 0, numberOfAgents);
+        buffer.put(visions, 0, numberOfAgents);
+        random.writeState(buffer);
+    }
+
+    /**
+     * Replaces every agent with the agents of a table written by writeState and rebuilds the occupancy bitmap
+     * @param buffer: buffer holding the bytes written by writeState
+     */
+    public void readState(ByteBuffer buffer) {
+        numberOfAgents = buffer.getInt();
+        buffer.asIntBuffer().get(cells, 0, numberOfAgents).get(currentSugar, 0, numberOfAgents);
+        buffer.position(buffer.position() + 2 * Integer.BYTES * numberOfAgents);
+        buffer.get(metabolismRates, 0, numberOfAgents);
+        buffer.get(visions, 0, numberOfAgents);
+        random.readState(buffer);
+        Arrays.fill(occupiedCells, 0L);
+        for (int agent = 0; agent < numberOfAgents; agent++) {
+            setOccupied(cells[agent], true);
+        }
+    }
+
+    /**
+     * Sets or clears a Cell's bit in the occupancy bitmap
+     * @param cell: index of the Cell
+     * @param occupied: true if the Cell now holds an agent; false otherwise
+     */
+    private void setOccupied(int cell, boolean occupied) {
+        long bit = 1L << (cell % BITS_PER_WORD);
+        int word = cell / BITS_PER_WORD;
+        occupiedCells[word] = occupied ? occupiedCells[word] | bit : occupiedCells[word] & ~bit;
+    }
+
+}
@@ -0,0 +1,120 @@
+package model.agents;
+
+import java.nio.ByteBuffer;
+
+import model.random.SplitMix64;
+
+/**
+ * 
+ * Field of sugar patches for the Sugarscape Simulation, one patch per Cell, stored as primitive 
+ * arrays indexed like the Grid's state buffers. Sugar and capacity take one byte each, so the 
+ * field costs 2 bytes per patch. Every patch counts towards its next regrowth in lockstep, so a 
+ * single counter serves the whole field
+ * 
+ * @author Stephen
+ *
+ */
+public class SugarscapePatches {
+
+    private final int MAX_SUGAR = 3;
+    private final int SUGAR_GROW_BACK_RATE = 1;
+    private final int SUGAR_GROW_RATE_INTERVAL = 1;
+    private final byte[] sugar;
+    private final byte[] capacity;
+    private int sugarGrowBackCounter;
+
+    /**
+     * Instantiates a field of patches, each starting with a random amount of sugar 
+     * and able to hold up to MAX_SUGAR
+     * @param numberOfPatches: the number of patches, equal to the number of Cells in the Grid
+     * @param random: source of the initial amounts of sugar
+     */
+    public SugarscapePatches(int numberOfPatches, SplitMix64 random) {
+        this(numberOfPatches);
+        for (int patch = 0; patch < numberOfPatches; patch++) {
+            capacity[patch] = MAX_SUGAR;
+            sugar[patch] = (byte) random.nextInt(MAX_SUGAR + 1);
+        }
+    }
+
+    /**
+     * Instantiates a field of patches without sugar or capacity, to be filled by readState
+     * @param numberOfPatches: the number of patches, equal to the number of Cells in the Grid
+     */
+    public SugarscapePatches(int numberOfPatches) {
+        sugar = new byte[numberOfPatches];
+        capacity = new byte[numberOfPatches];
+    }
+
+    /**
+     * @return true if the next call to growSugar grows sugar back; false if the patches are 
+     * still counting towards their next regrowth
+     */
+    public boolean willGrowSugar() {
+        return sugarGrowBackCounter + 1 == SUGAR_GROW_RATE_INTERVAL;
+    }
+
+    /**
+     * Grows sugar on every patch. The sweep is a branch-free loop over the sugar and capacity 
+     * arrays, which the JIT compiler can vectorize
+     */
+    public void growSugar() {
+        if (++sugarGrowBackCounter != SUGAR_GROW_RATE_INTERVAL) return;
+        sugarGrowBackCounter = 0;
+        for (int patch = 0; patch < sugar.length; patch++) {
+            sugar[patch] = (byte) Math.min(sugar[patch] + SUGAR_GROW_BACK_RATE, capacity[patch]);
+        }
+    }
+
+    /**
+     * @param patch: index of a patch
+     * @return true if the patch holds less sugar than its capacity; false otherwise
+     */
+    public boolean canGrow(int patch) {
+        return sugar[patch] < capacity[patch];
+    }
+
+    /**
+     * @param patch: index of a patch
+     * @return the amount of sugar on the patch
+     */
+    public int getSugar(int patch) {
+        return sugar[patch];
+    }
+
+    /**
+     * Sets the amount of sugar on the patch to 0
+     * @param patch: index of a patch
+     */
+    public void depleteSugar(int patch) {
+        sugar[patch] = 0;
+    }
+
+    /**
+     * @return the number of bytes writeState writes
+     */
+    public int getStateSize() {
+        return Integer.BYTES + sugar.length + capacity.length;
+    }
+
+    /**
+     * Writes the patch table: the regrowth counter, then the sugar and the capacity of every patch
+     * @param buffer: buffer receiving getStateSize bytes
+     */
+    public void writeState(ByteBuffer buffer) {
+        buffer.putInt(sugarGrowBackCounter);
+        buffer.put(sugar);
+        buffer.put(capacity);
+    }
+
+    /**
+     * Replaces the sugar and capacity of every patch with a table written by writeState
+     * @param buffer: buffer holding the bytes written by writeState
+     */
+    public void readState(ByteBuffer buffer) {
+        sugarGrowBackCounter = buffer.getInt();
+        buffer.get(sugar);
+        buffer.get(capacity);
+    }
+
+}
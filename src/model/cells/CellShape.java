@@ -0,0 +1,39 @@
+package model.cells;
+
+/**
+ * 
+ * Shape of the Cells a Grid is drawn with. Describes how Cells of the shape tessellate a row, so that
+ * a view can find the Cell covering any point without creating an object per Cell. Positions are given 
+ * in Cell widths horizontally and, within a row, as a fraction of the Cell height vertically
+ * 
+ * @author Stephen
+ *
+ */
+public interface CellShape {
+
+	int NO_CELL = -1;
+
+	/**
+	 * @param columns: the number of Cells in a row
+	 * @return the width of a row of the given number of Cells, in Cell widths
+	 */
+	double getRowWidth(int columns);
+
+	/**
+	 * @param column: column of a Cell
+	 * @return position of the left edge of the Cell's bounding box, in Cell widths; The bounding box 
+	 * is one Cell width wide
+	 */
+	double getLeft(int column);
+
+	/**
+	 * Finds the Cell of a row covering a point
+	 * @param row: the row
+	 * @param x: position of the point from the left edge of the row, in Cell widths
+	 * @param y: position of the point from the top edge of the row, as a fraction of the Cell height
+	 * @return column of the Cell covering the point, which may lie outside the Grid near its edges, 
+	 * or NO_CELL if no Cell covers the point
+	 */
+	int getColumnAt(int row, double x, double y);
+
+}
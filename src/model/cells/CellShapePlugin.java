@@ -0,0 +1,20 @@
+package model.cells;
+
+/**
+ * 
+ * Adds Cell shapes to the default CellShapeRegistry. Implementations are discovered with 
+ * java.util.ServiceLoader, so a jar on the class path that lists its plugin in 
+ * META-INF/services/model.cells.CellShapePlugin can display Grids with new shapes
+ * 
+ * @author Stephen
+ *
+ */
+public interface CellShapePlugin {
+
+	/**
+	 * Registers the plugin's Cell shapes
+	 * @param registry: the registry to add the shapes to
+	 */
+	void registerWith(CellShapeRegistry registry);
+
+}
@@ -0,0 +1,67 @@
+package model.cells;
+
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 
+ * Registry of the shapes Cells can be drawn with, keyed by the shape's name as given in the cellType 
+ * tag of XML files. The shape is looked up once per Grid, when the Grid's display is laid out
+ * 
+ * @author Stephen
+ *
+ */
+public class CellShapeRegistry {
+
+	private final String ERROR_MESSAGE_UNKNOWN_CELL_TYPE = "Unknown Cell Type: ";
+	private final Map<String, CellShape> cellShapes = new ConcurrentHashMap<>();
+
+	/**
+	 * Holds the default registry, which is created the first time it is used
+	 */
+	private static class DefaultRegistry {
+		private static final CellShapeRegistry INSTANCE = createDefault();
+	}
+
+	/**
+	 * @return the registry holding the built in Cell shapes and those of every CellShapePlugin on the class path
+	 */
+	public static CellShapeRegistry getDefault() {
+		return DefaultRegistry.INSTANCE;
+	}
+
+	/**
+	 * Registers a Cell shape, replacing any shape registered under the same name
+	 * @param cellType: name of the shape
+	 * @param shape: geometry of the shape
+	 */
+	public void registerCellShape(String cellType, CellShape shape) {
+		cellShapes.put(cellType, shape);
+	}
+
+	/**
+	 * @param cellType: name of a shape
+	 * @return geometry of the shape
+	 * @throws IllegalArgumentException if no shape is registered under the name
+	 */
+	public CellShape getCellShape(String cellType) {
+		CellShape shape = cellShapes.get(cellType);
+		if (shape == null) throw new IllegalArgumentException(ERROR_MESSAGE_UNKNOWN_CELL_TYPE + cellType);
+		return shape;
+	}
+
+	/**
+	 * @return a registry holding the built in Cell shapes and those of every CellShapePlugin on the class path
+	 */
+	private static CellShapeRegistry createDefault() {
+		CellShapeRegistry registry = new CellShapeRegistry();
+		registry.registerCellShape("CellSquare", new CellSquare());
+		registry.registerCellShape("CellTriangle", new CellTriangle());
+		for (CellShapePlugin plugin : ServiceLoader.load(CellShapePlugin.class)) {
+			plugin.registerWith(registry);
+		}
+		return registry;
+	}
+
+}
@@ -1,48 +1,35 @@
 package model.cells;
 
 /**
- * A Cell in the shape of a square
+ * Cells in the shape of squares, laid side by side
  * 
  * @author Stephen
  * 
  */
-public class CellSquare extends Cell {
+public class CellSquare implements CellShape {
 
 	/**
-	 * Instantiates square-shaped Cell
-     * @param initialState: the initial state of the Cell
-     * @param height: the height of the Cell
-     * @param width: the width of the Cell
-     * @param row: the Cell's row
-     * @param column: the Cell's column
+	 * A row of squares is as wide as its number of Cells
 	 */
-    public CellSquare(int initialState, double height, double width, int row, int column) {
-        super(initialState, height, width, row, column);
-    }
+	@Override
+	public double getRowWidth(int columns) {
+		return columns;
+	}
 
-    /**
-     * Initializes the Cell's Dimensions to represent a square
-     * 
-     * @return an array of doubles representing the Cell's dimensions
-     */
-    @Override
-    protected double[] initializeCellDimensions() {
-        double[] points = new double[] {0.0, 0.0,
-                                        0.0, getHeight(),
-                                        getWidth(), getHeight(),
-                                        getWidth(), 0.0};
-        return points;
-    }
-
-    /**
-     * Sets the Cell's position (Layout X and Y in the Grid display) according to the Cell's
-     * width, height, row, column, and shape
-     */
-    @Override
-    protected void setCellPosition() {
-        setLayoutX(getColumn() * getWidth());
-        setLayoutY(getRow() * getHeight());
-    }
+	/**
+	 * Each square starts where the previous one ends
+	 */
+	@Override
+	public double getLeft(int column) {
+		return column;
+	}
 
+	/**
+	 * The square covering a point is the one whose column the point falls in
+	 */
+	@Override
+	public int getColumnAt(int row, double x, double y) {
+		return x < 0 ? NO_CELL : (int) x;
+	}
 
 }
@@ -1,47 +1,53 @@
 package model.cells;
+
 /**
- * A Cell in the shape of a triangle
+ * Cells in the shape of triangles: Cells whose row and column add up to an even number point up, and
+ * Cells whose row and column add up to an odd number point down. Each triangle starts half a Cell width
+ * after the previous one, so that neighbors interlock
  * 
  * @author Stephen
  */
-public class CellTriangle extends Cell {
+public class CellTriangle implements CellShape {
+
+	private static final double HALF = 0.5;
+
+	/**
+	 * A row of triangles is half a Cell width wider than half its number of Cells
+	 */
+	@Override
+	public double getRowWidth(int columns) {
+		return (columns + 1) * HALF;
+	}
+
+	/**
+	 * Each triangle starts half a Cell width after the previous one
+	 */
+	@Override
+	public double getLeft(int column) {
+		return column * HALF;
+	}
 
 	/**
-	 * Instantiates triangle-shaped Cell
-     * @param initialState: the initial state of the Cell
-     * @param height: the height of the Cell
-     * @param width: the width of the Cell
-     * @param row: the Cell's row
-     * @param column: the Cell's column
+	 * A point lies in the half-width strip of two interlocking triangles, one pointing up and one 
+	 * pointing down; the sloped side they share splits the strip between them
 	 */
-    public CellTriangle(int initialState, double height, double width, int row, int column) {
-        super(initialState, height, width, row, column);
-    }
-    
-    /**
-     * Initializes cell dimensions according to its row and column: Row and columns that add up
-     * to an even number yield a triangle pointing up; Row and columns that sum to odd number yield
-     * triangle pointing down;
-     */
 	@Override
-	protected double[] initializeCellDimensions() {
-		boolean pointingUp = (getRow() + getColumn()) % 2 == 0;
-		double[] points;
-		if (pointingUp) {
-			points = new double[] { 0.0, getHeight(), getWidth() / 2, 0.0, getWidth(), getHeight() };
-		} else {
-			points = new double[] { 0.0, 0.0, getWidth(), 0.0, getWidth() / 2, getHeight() };
-		}
-		return points;
+	public int getColumnAt(int row, double x, double y) {
+		if (x < 0) return NO_CELL;
+		double halfWidths = x / HALF;
+		int strip = (int) halfWidths;
+		double positionInStrip = halfWidths - strip;
+		double sharedSide = isPointingUp(row, strip) ? 1 - y : y;
+		return positionInStrip >= sharedSide ? strip : strip - 1;
+	}
+
+	/**
+	 * @param row: row of a Cell
+	 * @param column: column of a Cell
+	 * @return true if the Cell points up; false if it points down
+	 */
+	public static boolean isPointingUp(int row, int column) {
+		return (row + column) % 2 == 0;
 	}
 
-    /**
-     * Sets the Cell's position (Layout X and Y in the Grid display) according to the Cell's
-     * width, height, row, column, and shape
-     */
-    @Override
-    protected void setCellPosition() {
-    	setLayoutX((getColumn() * getWidth()) / 2.0);
-    	setLayoutY(getRow() * getHeight());
-    }
 }
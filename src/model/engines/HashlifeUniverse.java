@@ -0,0 +1,467 @@
+package model.engines;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ *
+ * Infinite Game of Life universe advanced with the Hashlife algorithm. The universe is a quadtree
+ * of canonical (hash-consed) nodes, so repeated regions of space and time are stored and computed
+ * once; Each node memoizes its own future, which lets the universe jump 2^k generations at a time.
+ * The canonical node cache is bounded: once it is full, it is collected by forgetting every memoized
+ * future and caching again only the nodes of the current universe, so the nodes of earlier generations,
+ * and the futures that kept them reachable, can be reclaimed. A jump that fills the cache is abandoned
+ * and made again as two jumps half as long, with a collection before each, down to single generations
+ *
+ * Cells are addressed by row and column relative to the universe's origin; either may be negative
+ *
+ * @author Stephen
+ *
+ */
+public class HashlifeUniverse {
+
+	/**
+	 * Thrown by join when a jump that can be split fills the cache
+	 */
+	private static class CacheFullException extends RuntimeException {
+		private static final long serialVersionUID = 1L;
+
+		CacheFullException() {
+			super(null, null, false, false);
+		}
+	}
+
+	/**
+	 * Receives the position of each live cell found in a region of the universe
+	 */
+	public interface LiveCellVisitor {
+		/**
+		 * @param row: row of the live cell relative to the top of the region
+		 * @param column: column of the live cell relative to the left of the region
+		 */
+		void visit(int row, int column);
+	}
+
+	private static final int DEFAULT_MAX_CACHED_NODES = 1 << 21;
+	private static final int INITIAL_LEVEL = 3;
+	private final QuadNode deadCell = new QuadNode(false);
+	private final QuadNode liveCell = new QuadNode(true);
+	private final List<QuadNode> emptyNodes = new ArrayList<>();
+	private final Map<QuadNode, QuadNode> cache = new HashMap<>();
+	private final int maxCachedNodes;
+	private boolean splittingJump;
+	private QuadNode root;
+	private long generation;
+
+	/**
+	 * Instantiates an empty universe with the default bound on cached nodes
+	 */
+	public HashlifeUniverse() {
+		this(DEFAULT_MAX_CACHED_NODES);
+	}
+
+	/**
+	 * Instantiates an empty universe
+	 * @param maxCachedNodes: the most canonical nodes cached; Only a single generation whose nodes alone do not
+	 * fit, along with the nodes of the universe it starts from, may cache more
+	 */
+	public HashlifeUniverse(int maxCachedNodes) {
+		this.maxCachedNodes = maxCachedNodes;
+		emptyNodes.add(deadCell);
+		root = getEmptyNode(INITIAL_LEVEL);
+	}
+
+	/**
+	 * @param row: row of the cell
+	 * @param column: column of the cell
+	 * @return true if the cell at the given row and column is alive; false otherwise
+	 */
+	public boolean isAlive(long row, long column) {
+		if (!contains(root, row, column)) return false;
+		QuadNode node = root;
+		while (node.level > 0) {
+			long quarter = quarterWidth(node);
+			boolean north = row < 0;
+			boolean west = column < 0;
+			node = north ? (west ? node.nw : node.ne) : (west ? node.sw : node.se);
+			row += north ? quarter : -quarter;
+			column += west ? quarter : -quarter;
+		}
+		return node == liveCell;
+	}
+
+	/**
+	 * Sets whether the cell at the given row and column is alive, growing the universe's
+	 * root as needed to contain the cell
+	 * @param row: row of the cell
+	 * @param column: column of the cell
+	 * @param alive: true to make the cell alive; false to make it dead
+	 */
+	public void setAlive(long row, long column, boolean alive) {
+		while (!contains(root, row, column)) {
+			root = expand(root);
+		}
+		root = setAlive(root, row, column, alive);
+	}
+
+	/**
+	 * Kills every cell and shrinks the universe back to its initial size, then collects the cache so that
+	 * none of the cleared nodes stay reachable; The number of generations advanced is kept
+	 */
+	public void clear() {
+		root = getEmptyNode(INITIAL_LEVEL);
+		collectGarbage();
+	}
+
+	/**
+	 * Advances the universe by 2^exponent generations. The root is first padded with empty space
+	 * so that nothing the pattern grows into during the jump is cut off. If the jump fills the cache,
+	 * it is made again as two jumps of 2^(exponent - 1) generations
+	 * @param exponent: base 2 logarithm of the number of generations to advance
+	 */
+	public void advance(int exponent) {
+		if (cache.size() >= maxCachedNodes) collectGarbage();
+		while (root.level < exponent + 3 || !isPadded(root)) {
+			root = expand(root);
+		}
+		splittingJump = exponent > 0;
+		try {
+			root = step(root, exponent);
+		} catch (CacheFullException e) {
+			collectGarbage();
+			advance(exponent - 1);
+			advance(exponent - 1);
+			return;
+		} finally {
+			splittingJump = false;
+		}
+		generation += 1L << exponent;
+	}
+
+	/**
+	 * Visits every live cell within the given rectangular region
+	 * @param top: row of the region's top edge
+	 * @param left: column of the region's left edge
+	 * @param rows: number of rows in the region
+	 * @param columns: number of columns in the region
+	 * @param visitor: receives the position of each live cell relative to the region
+	 */
+	public void forEachLiveCell(long top, long left, int rows, int columns, LiveCellVisitor visitor) {
+		long half = 1L << (root.level - 1);
+		visitLiveCells(root, -half, -half, top, left, rows, columns, visitor);
+	}
+
+	/**
+	 * @return the row and column of every live cell in the universe, interleaved
+	 */
+	public long[] getLiveCells() {
+		long[] liveCells = new long[Math.toIntExact(2 * root.population)];
+		long half = 1L << (root.level - 1);
+		collectLiveCells(root, -half, -half, liveCells, 0);
+		return liveCells;
+	}
+
+	/**
+	 * @return the number of generations the universe has been advanced
+	 */
+	public long getGeneration() {
+		return generation;
+	}
+
+	/**
+	 * Restores the number of generations the universe has been advanced, as when resuming a saved universe
+	 * @param generation: the number of generations
+	 */
+	public void setGeneration(long generation) {
+		this.generation = generation;
+	}
+
+	/**
+	 * @return the number of live cells in the universe
+	 */
+	public long getPopulation() {
+		return root.population;
+	}
+
+	/**
+	 * @return the number of canonical nodes currently cached
+	 */
+	public int getCachedNodeCount() {
+		return cache.size();
+	}
+
+	/**
+	 * Retrieves the canonical node with the given quadrants
+	 * @param nw: north west quadrant
+	 * @param ne: north east quadrant
+	 * @param sw: south west quadrant
+	 * @param se: south east quadrant
+	 * @return canonical node made of the given quadrants
+	 */
+	private QuadNode join(QuadNode nw, QuadNode ne, QuadNode sw, QuadNode se) {
+		QuadNode node = new QuadNode(nw, ne, sw, se);
+		QuadNode canonical = cache.get(node);
+		if (canonical != null) return canonical;
+		if (splittingJump && cache.size() >= maxCachedNodes) throw new CacheFullException();
+		cache.put(node, node);
+		return node;
+	}
+
+	/**
+	 * Forgets the memoized future of every node and empties the cache, then caches again the empty nodes
+	 * and the nodes of the root, so that no other node stays reachable through the universe
+	 */
+	private void collectGarbage() {
+		for (QuadNode node : cache.keySet()) {
+			node.result = null;
+			node.stepResult = null;
+			node.stepExponent = -1;
+		}
+		cache.clear();
+		for (QuadNode empty : emptyNodes) {
+			if (empty.level > 0) cache.put(empty, empty);
+		}
+		recache(root);
+	}
+
+	/**
+	 * Caches a node and every node below it that is not cached yet
+	 * @param node: node to be cached
+	 */
+	private void recache(QuadNode node) {
+		if (node.level == 0 || cache.putIfAbsent(node, node) != null) return;
+		recache(node.nw);
+		recache(node.ne);
+		recache(node.sw);
+		recache(node.se);
+	}
+
+	/**
+	 * @param level: level of the node
+	 * @return an empty node of the given level
+	 */
+	private QuadNode getEmptyNode(int level) {
+		while (emptyNodes.size() <= level) {
+			QuadNode empty = emptyNodes.get(emptyNodes.size() - 1);
+			emptyNodes.add(join(empty, empty, empty, empty));
+		}
+		return emptyNodes.get(level);
+	}
+
+	/**
+	 * Surrounds a node with empty space
+	 * @param node: node to be expanded
+	 * @return a node one level higher with the given node at its center
+	 */
+	private QuadNode expand(QuadNode node) {
+		QuadNode empty = getEmptyNode(node.level - 1);
+		return join(join(empty, empty, empty, node.nw), join(empty, empty, node.ne, empty),
+				join(empty, node.sw, empty, empty), join(node.se, empty, empty, empty));
+	}
+
+	/**
+	 * Checks whether all of a node's live cells are within the central quarter of its width,
+	 * which leaves enough empty space around the pattern to advance the node by a full step
+	 * @param node: node of level 3 or above
+	 * @return true if the node is padded; false otherwise
+	 */
+	private boolean isPadded(QuadNode node) {
+		return node.nw.se.se.population + node.ne.sw.sw.population + node.sw.ne.ne.population
+				+ node.se.nw.nw.population == node.population;
+	}
+
+	/**
+	 * Computes the center of a node after 2^exponent generations
+	 * @param node: node of level 2 or above
+	 * @param exponent: base 2 logarithm of the number of generations; at most node.level - 2
+	 * @return a node one level lower holding the node's center after 2^exponent generations
+	 */
+	private QuadNode step(QuadNode node, int exponent) {
+		if (node.population == 0) return node.nw;
+		if (node.level == 2) {
+			if (node.result == null) node.result = stepSmallestNode(node);
+			return node.result;
+		}
+		boolean fullStep = exponent == node.level - 2;
+		if (fullStep && node.result != null) return node.result;
+		if (!fullStep && node.stepExponent == exponent) return node.stepResult;
+
+		QuadNode[] parts = { node.nw, centerHorizontal(node.nw, node.ne), node.ne,
+				centerVertical(node.nw, node.sw), centerOf(node), centerVertical(node.ne, node.se),
+				node.sw, centerHorizontal(node.sw, node.se), node.se };
+		for (int i = 0; i < parts.length; i++) {
+			parts[i] = fullStep ? step(parts[i], exponent - 1) : centerOf(parts[i]);
+		}
+		int nextExponent = fullStep ? exponent - 1 : exponent;
+		QuadNode result = join(
+				step(join(parts[0], parts[1], parts[3], parts[4]), nextExponent),
+				step(join(parts[1], parts[2], parts[4], parts[5]), nextExponent),
+				step(join(parts[3], parts[4], parts[6], parts[7]), nextExponent),
+				step(join(parts[4], parts[5], parts[7], parts[8]), nextExponent));
+		if (fullStep) {
+			node.result = result;
+		}
+		else {
+			node.stepResult = result;
+			node.stepExponent = exponent;
+		}
+		return result;
+	}
+
+	/**
+	 * Applies the rules of Game of Life directly to a 4 by 4 node
+	 * @param node: node of level 2
+	 * @return node of level 1 holding the center 2 by 2 cells after one generation
+	 */
+	private QuadNode stepSmallestNode(QuadNode node) {
+		int cells = 0;
+		QuadNode[] quadrants = { node.nw, node.ne, node.sw, node.se };
+		for (int i = 0; i < quadrants.length; i++) {
+			int rowOffset = (i / 2) * 2;
+			int columnOffset = (i % 2) * 2;
+			QuadNode[] quadrantCells = { quadrants[i].nw, quadrants[i].ne, quadrants[i].sw, quadrants[i].se };
+			for (int j = 0; j < quadrantCells.length; j++) {
+				if (quadrantCells[j] == liveCell) {
+					cells |= 1 << ((rowOffset + j / 2) * 4 + columnOffset + j % 2);
+				}
+			}
+		}
+		return join(nextCell(cells, 1, 1), nextCell(cells, 1, 2), nextCell(cells, 2, 1), nextCell(cells, 2, 2));
+	}
+
+	/**
+	 * @param cells: 4 by 4 cells packed into an int, one bit per cell in row-major order
+	 * @param row: row of an interior cell
+	 * @param column: column of an interior cell
+	 * @return the cell after one generation
+	 */
+	private QuadNode nextCell(int cells, int row, int column) {
+		int liveNeighbors = 0;
+		for (int rowOffset = -1; rowOffset <= 1; rowOffset++) {
+			for (int columnOffset = -1; columnOffset <= 1; columnOffset++) {
+				if (!(rowOffset == 0 && columnOffset == 0)) {
+					liveNeighbors += cells >>> ((row + rowOffset) * 4 + column + columnOffset) & 1;
+				}
+			}
+		}
+		boolean alive = (cells >>> (row * 4 + column) & 1) != 0;
+		return liveNeighbors == 3 || (alive && liveNeighbors == 2) ? liveCell : deadCell;
+	}
+
+	/**
+	 * @param node: node of level 2 or above
+	 * @return node one level lower made of the four grandchildren at the node's center
+	 */
+	private QuadNode centerOf(QuadNode node) {
+		return join(node.nw.se, node.ne.sw, node.sw.ne, node.se.nw);
+	}
+
+	/**
+	 * @param west: node of level 1 or above
+	 * @param east: node adjacent to the east of the west node
+	 * @return node of the same level straddling the border between the two nodes
+	 */
+	private QuadNode centerHorizontal(QuadNode west, QuadNode east) {
+		return join(west.ne, east.nw, west.se, east.sw);
+	}
+
+	/**
+	 * @param north: node of level 1 or above
+	 * @param south: node adjacent to the south of the north node
+	 * @return node of the same level straddling the border between the two nodes
+	 */
+	private QuadNode centerVertical(QuadNode north, QuadNode south) {
+		return join(north.sw, north.se, south.nw, south.ne);
+	}
+
+	/**
+	 * Copies the path to a cell, changing the cell
+	 * @param node: node containing the cell
+	 * @param row: row of the cell relative to the node's center
+	 * @param column: column of the cell relative to the node's center
+	 * @param alive: true to make the cell alive; false to make it dead
+	 * @return canonical node with the cell changed
+	 */
+	private QuadNode setAlive(QuadNode node, long row, long column, boolean alive) {
+		if (node.level == 0) return alive ? liveCell : deadCell;
+		long quarter = quarterWidth(node);
+		long childRow = row < 0 ? row + quarter : row - quarter;
+		long childColumn = column < 0 ? column + quarter : column - quarter;
+		if (row < 0 && column < 0) return join(setAlive(node.nw, childRow, childColumn, alive), node.ne, node.sw, node.se);
+		if (row < 0) return join(node.nw, setAlive(node.ne, childRow, childColumn, alive), node.sw, node.se);
+		if (column < 0) return join(node.nw, node.ne, setAlive(node.sw, childRow, childColumn, alive), node.se);
+		return join(node.nw, node.ne, node.sw, setAlive(node.se, childRow, childColumn, alive));
+	}
+
+	/**
+	 * Visits the live cells of a node that fall within a region
+	 * @param node: node being searched
+	 * @param nodeTop: row of the node's top edge
+	 * @param nodeLeft: column of the node's left edge
+	 * @param top: row of the region's top edge
+	 * @param left: column of the region's left edge
+	 * @param rows: number of rows in the region
+	 * @param columns: number of columns in the region
+	 * @param visitor: receives the position of each live cell relative to the region
+	 */
+	private void visitLiveCells(QuadNode node, long nodeTop, long nodeLeft, long top, long left, int rows,
+			int columns, LiveCellVisitor visitor) {
+		long width = 1L << node.level;
+		if (node.population == 0 || nodeTop >= top + rows || nodeLeft >= left + columns
+				|| nodeTop + width <= top || nodeLeft + width <= left) return;
+		if (node.level == 0) {
+			visitor.visit((int) (nodeTop - top), (int) (nodeLeft - left));
+			return;
+		}
+		long half = width / 2;
+		visitLiveCells(node.nw, nodeTop, nodeLeft, top, left, rows, columns, visitor);
+		visitLiveCells(node.ne, nodeTop, nodeLeft + half, top, left, rows, columns, visitor);
+		visitLiveCells(node.sw, nodeTop + half, nodeLeft, top, left, rows, columns, visitor);
+		visitLiveCells(node.se, nodeTop + half, nodeLeft + half, top, left, rows, columns, visitor);
+	}
+
+	/**
+	 * Stores the position of every live cell in a node
+	 * @param node: node whose live cells are stored
+	 * @param nodeTop: row of the node's top edge
+	 * @param nodeLeft: column of the node's left edge
+	 * @param liveCells: receives the row and column of each live cell, interleaved
+	 * @param index: position in liveCells of the node's first live cell
+	 * @return position in liveCells after the node's last live cell
+	 */
+	private int collectLiveCells(QuadNode node, long nodeTop, long nodeLeft, long[] liveCells, int index) {
+		if (node.population == 0) return index;
+		if (node.level == 0) {
+			liveCells[index] = nodeTop;
+			liveCells[index + 1] = nodeLeft;
+			return index + 2;
+		}
+		long half = 1L << (node.level - 1);
+		index = collectLiveCells(node.nw, nodeTop, nodeLeft, liveCells, index);
+		index = collectLiveCells(node.ne, nodeTop, nodeLeft + half, liveCells, index);
+		index = collectLiveCells(node.sw, nodeTop + half, nodeLeft, liveCells, index);
+		return collectLiveCells(node.se, nodeTop + half, nodeLeft + half, liveCells, index);
+	}
+
+	/**
+	 * @param node: node centered on the origin
+	 * @param row: row of a cell
+	 * @param column: column of a cell
+	 * @return true if the node covers the cell; false otherwise
+	 */
+	private boolean contains(QuadNode node, long row, long column) {
+		long half = 1L << (node.level - 1);
+		return row >= -half && row < half && column >= -half && column < half;
+	}
+
+	/**
+	 * @param node: node of level 1 or above
+	 * @return the distance from the node's center to the center of each of its quadrants
+	 */
+	private long quarterWidth(QuadNode node) {
+		return node.level == 1 ? 0 : 1L << (node.level - 2);
+	}
+
+}
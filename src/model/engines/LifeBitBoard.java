@@ -0,0 +1,195 @@
+package model.engines;
+
+/**
+ *
+ * Game of Life board that packs 64 cells into each long and computes the next generation
+ * with bitwise adder logic, counting the neighbors of 64 cells at once. Bit j of word w of a row
+ * holds the cell in column 64 * w + j. Supports standard (no wrapping) and toroidal (wrapping) edges
+ *
+ * @author Stephen
+ *
+ */
+public class LifeBitBoard {
+
+	public static final int BITS_PER_WORD = 64;
+	private final int rows;
+	private final int columns;
+	private final int wordsPerRow;
+	private final int lastWord;
+	private final int lastBit;
+	private final long lastWordMask;
+	private final boolean toroidal;
+	private long[] cells;
+	private long[] nextCells;
+
+	/**
+	 * Instantiates an empty board
+	 * @param rows: the number of rows in the board
+	 * @param columns: the number of columns in the board
+	 * @param toroidal: true if the board's edges wrap around; false otherwise
+	 */
+	public LifeBitBoard(int rows, int columns, boolean toroidal) {
+		this.rows = rows;
+		this.columns = columns;
+		this.toroidal = toroidal;
+		wordsPerRow = (columns + BITS_PER_WORD - 1) / BITS_PER_WORD;
+		lastWord = wordsPerRow - 1;
+		lastBit = (columns - 1) % BITS_PER_WORD;
+		lastWordMask = lastBit == BITS_PER_WORD - 1 ? -1L : (1L << (lastBit + 1)) - 1;
+		// one extra row that always stays empty stands in for the rows beyond standard edges
+		cells = new long[(rows + 1) * wordsPerRow];
+		nextCells = new long[(rows + 1) * wordsPerRow];
+	}
+
+	/**
+	 * @param row: row of the cell
+	 * @param column: column of the cell
+	 * @return true if the cell at the given row and column is alive; false otherwise
+	 */
+	public boolean isAlive(int row, int column) {
+		return (cells[row * wordsPerRow + column / BITS_PER_WORD] >>> (column % BITS_PER_WORD) & 1L) != 0;
+	}
+
+	/**
+	 * Sets whether the cell at the given row and column is alive
+	 * @param row: row of the cell
+	 * @param column: column of the cell
+	 * @param alive: true to make the cell alive; false to make it dead
+	 */
+	public void setAlive(int row, int column, boolean alive) {
+		int word = row * wordsPerRow + column / BITS_PER_WORD;
+		long bit = 1L << (column % BITS_PER_WORD);
+		cells[word] = alive ? cells[word] | bit : cells[word] & ~bit;
+	}
+
+	/**
+	 * @param row: row of the board
+	 * @param word: position of a word within the row
+	 * @return the word's cells, with bit j holding the cell in column BITS_PER_WORD * word + j
+	 */
+	public long getWord(int row, int word) {
+		return cells[row * wordsPerRow + word];
+	}
+
+	/**
+	 * @return the number of words in each row
+	 */
+	public int getWordsPerRow() {
+		return wordsPerRow;
+	}
+
+	/**
+	 * Advances the board by one generation
+	 */
+	public void step() {
+		for (int row = 0; row < rows; row++) {
+			int rowStart = row * wordsPerRow;
+			int aboveStart = getNeighborRow(row - 1) * wordsPerRow;
+			int belowStart = getNeighborRow(row + 1) * wordsPerRow;
+			for (int word = 0; word < wordsPerRow; word++) {
+				nextCells[rowStart + word] = nextWord(aboveStart, rowStart, belowStart, word);
+			}
+		}
+		long[] previousCells = cells;
+		cells = nextCells;
+		nextCells = previousCells;
+	}
+
+	/**
+	 * @return the number of live cells on the board
+	 */
+	public long getPopulation() {
+		long population = 0;
+		for (long word : cells) {
+			population += Long.bitCount(word);
+		}
+		return population;
+	}
+
+	/**
+	 * @return the number of rows in the board
+	 */
+	public int getNumberOfRows() {
+		return rows;
+	}
+
+	/**
+	 * @return the number of columns in the board
+	 */
+	public int getNumberOfColumns() {
+		return columns;
+	}
+
+	/**
+	 * Computes the next generation of the 64 cells in one word. The 8 neighbor bits of every cell
+	 * are summed with full adders: each outer row yields a 2 bit count and the middle row a 2 bit 
+	 * count, and those are added into a ones bit, a twos bit, and a flag for counts of 4 or more
+	 * @param aboveStart: start of the row above
+	 * @param rowStart: start of the row holding the word
+	 * @param belowStart: start of the row below
+	 * @param word: position of the word within its row
+	 * @return the word's cells in the next generation
+	 */
+	private long nextWord(int aboveStart, int rowStart, int belowStart, int word) {
+		long aboveWest = west(aboveStart, word), above = cells[aboveStart + word], aboveEast = east(aboveStart, word);
+		long belowWest = west(belowStart, word), below = cells[belowStart + word], belowEast = east(belowStart, word);
+		long middleWest = west(rowStart, word), middleEast = east(rowStart, word);
+
+		long aboveHalf = aboveWest ^ above;
+		long aboveOnes = aboveHalf ^ aboveEast;
+		long aboveTwos = (aboveWest & above) | (aboveEast & aboveHalf);
+		long belowHalf = belowWest ^ below;
+		long belowOnes = belowHalf ^ belowEast;
+		long belowTwos = (belowWest & below) | (belowEast & belowHalf);
+		long middleOnes = middleWest ^ middleEast;
+		long middleTwos = middleWest & middleEast;
+
+		long onesHalf = aboveOnes ^ belowOnes;
+		long ones = onesHalf ^ middleOnes;
+		long onesCarry = (aboveOnes & belowOnes) | (middleOnes & onesHalf);
+		long twosHalf = aboveTwos ^ belowTwos;
+		long twosSum = twosHalf ^ middleTwos;
+		long twosCarry = (aboveTwos & belowTwos) | (middleTwos & twosHalf);
+		long twos = twosSum ^ onesCarry;
+		long fourOrMore = twosCarry | (twosSum & onesCarry);
+
+		long alive = cells[rowStart + word];
+		long next = ~fourOrMore & twos & (ones | alive);
+		return word == lastWord ? next & lastWordMask : next;
+	}
+
+	/**
+	 * @param rowStart: start of a row
+	 * @param word: position of a word within the row
+	 * @return the word shifted so that each cell's bit holds its western neighbor
+	 */
+	private long west(int rowStart, int word) {
+		long carry;
+		if (word > 0) carry = cells[rowStart + word - 1] >>> (BITS_PER_WORD - 1);
+		else carry = toroidal ? cells[rowStart + lastWord] >>> lastBit & 1L : 0L;
+		return cells[rowStart + word] << 1 | carry;
+	}
+
+	/**
+	 * @param rowStart: start of a row
+	 * @param word: position of a word within the row
+	 * @return the word shifted so that each cell's bit holds its eastern neighbor
+	 */
+	private long east(int rowStart, int word) {
+		long shifted = cells[rowStart + word] >>> 1;
+		if (word < lastWord) return shifted | cells[rowStart + word + 1] << (BITS_PER_WORD - 1);
+		return toroidal ? shifted | (cells[rowStart] & 1L) << lastBit : shifted;
+	}
+
+	/**
+	 * @param row: row above or below a row of the board, which may be off the board
+	 * @return the row holding that row's cells: the wrapped row for toroidal edges, or the
+	 * empty row for standard edges
+	 */
+	private int getNeighborRow(int row) {
+		if (row >= 0 && row < rows) return row;
+		if (toroidal) return (row + rows) % rows;
+		return rows;
+	}
+
+}
@@ -0,0 +1,135 @@
+package model.engines;
+
+/**
+ *
+ * A rule for automata with at most 8 states, compiled into a table indexed by a packed neighborhood key:
+ * the state of every neighbor and of the cell itself, each in getBitsPerState() bits, with the first
+ * neighbor in the lowest bits and the cell's own state above the last neighbor's. Keys are packed by the
+ * Grid's packNeighborhood methods. Each entry holds the cell's next state and, for stochastic
+ * transitions, the probability threshold a draw must fall below for the cell to move to that state;
+ * otherwise it keeps its current state. Applying the rule to a cell is then one or two array loads
+ * instead of a chain of state checks.
+ *
+ * The table has 2 to the power of (neighbors + 1) * bits entries, so it suits small neighborhoods: a
+ * von Neumann or cardinal neighborhood with up to 8 states, or a Moore neighborhood with up to 4 states
+ *
+ * @author Stephen
+ *
+ */
+public class LookupTableRule {
+
+	public static final int MAXIMUM_STATES = 8;
+	public static final double CERTAIN = Double.POSITIVE_INFINITY;
+	private static final int MAXIMUM_KEY_BITS = 20;
+	private final String ERROR_MESSAGE_TOO_MANY_STATES = "Lookup Table Rules Support At Most 8 States";
+	private final String ERROR_MESSAGE_TABLE_TOO_LARGE = "Neighborhood Too Large For A Lookup Table Rule";
+	private final int numberOfStates;
+	private final int numberOfNeighbors;
+	private final int bitsPerState;
+	private final int stateShift;
+	private final byte[] nextStates;
+	private final double[] thresholds;
+
+	/**
+	 * Defines the transitions of a rule for every combination of a cell's state and its neighbors' states
+	 */
+	public interface TransitionFunction {
+
+		/**
+		 * @param state: the state of a cell
+		 * @param neighborStates: the states of the cell's neighbors, in the order of its neighborhood
+		 * @return the state the cell moves to
+		 */
+		int getNextState(int state, int[] neighborStates);
+
+		/**
+		 * @param state: the state of a cell
+		 * @param neighborStates: the states of the cell's neighbors, in the order of its neighborhood
+		 * @return the probability that the cell moves to its next state rather than keeping its current
+		 * state, or CERTAIN if the transition is deterministic and needs no draw
+		 */
+		default double getProbability(int state, int[] neighborStates) {
+			return CERTAIN;
+		}
+	}
+
+	/**
+	 * Compiles a rule into its lookup table
+	 * @param numberOfStates: the number of states, at most 8
+	 * @param numberOfNeighbors: the number of cells in the neighborhood, not counting the cell itself
+	 * @param function: the rule's transitions
+	 * @throws IllegalArgumentException if the rule has too many states or its table would be too large
+	 */
+	public LookupTableRule(int numberOfStates, int numberOfNeighbors, TransitionFunction function) {
+		if (numberOfStates < 1 || numberOfStates > MAXIMUM_STATES) throw new IllegalArgumentException(ERROR_MESSAGE_TOO_MANY_STATES);
+		this.numberOfStates = numberOfStates;
+		this.numberOfNeighbors = numberOfNeighbors;
+		bitsPerState = Math.max(1, 32 - Integer.numberOfLeadingZeros(numberOfStates - 1));
+		stateShift = numberOfNeighbors * bitsPerState;
+		if (stateShift + bitsPerState > MAXIMUM_KEY_BITS) throw new IllegalArgumentException(ERROR_MESSAGE_TABLE_TOO_LARGE);
+		nextStates = new byte[1 << (stateShift + bitsPerState)];
+		thresholds = new double[nextStates.length];
+		compile(function);
+	}
+
+	/**
+	 * @return the number of bits each state takes in a key
+	 */
+	public int getBitsPerState() {
+		return bitsPerState;
+	}
+
+	/**
+	 * @return the number of states
+	 */
+	public int getNumberOfStates() {
+		return numberOfStates;
+	}
+
+	/**
+	 * @param key: a packed neighborhood key
+	 * @return true if the transition needs a draw; false if it is deterministic
+	 */
+	public boolean isStochastic(int key) {
+		return thresholds[key] != CERTAIN;
+	}
+
+	/**
+	 * @param key: a packed neighborhood key of a deterministic transition
+	 * @return the cell's next state
+	 */
+	public int getNextState(int key) {
+		return nextStates[key];
+	}
+
+	/**
+	 * @param key: a packed neighborhood key
+	 * @param draw: a pseudorandom double between 0.0 (inclusive) and 1.0 (exclusive), ignored by
+	 * deterministic transitions
+	 * @return the cell's next state if the draw falls below the transition's threshold; the cell's
+	 * current state otherwise
+	 */
+	public int getNextState(int key, double draw) {
+		return draw < thresholds[key] ? nextStates[key] : key >>> stateShift;
+	}
+
+	/**
+	 * Fills every entry of the table; Keys holding a state the rule does not have keep the cell's state
+	 * @param function: the rule's transitions
+	 */
+	private void compile(TransitionFunction function) {
+		int stateMask = (1 << bitsPerState) - 1;
+		int[] neighborStates = new int[numberOfNeighbors];
+		for (int key = 0; key < nextStates.length; key++) {
+			int state = key >>> stateShift;
+			boolean valid = state < numberOfStates;
+			for (int i = 0; i < numberOfNeighbors; i++) {
+				neighborStates[i] = key >>> (i * bitsPerState) & stateMask;
+				valid &= neighborStates[i] < numberOfStates;
+			}
+			nextStates[key] = (byte) (valid ? function.getNextState(state, neighborStates) : state);
+			thresholds[key] = valid ? function.getProbability(state, neighborStates) : CERTAIN;
+		}
+	}
+
+}
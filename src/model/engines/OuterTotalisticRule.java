@@ -0,0 +1,318 @@
+package model.engines;
+
+import java.util.Arrays;
+
+import model.grid.NeighborhoodType;
+
+/**
+ *
+ * An outer totalistic rule: a cell's next state depends only on its own state and the number of live
+ * cells in its neighborhood. Covers Life-like rules, Generations rules, whose cells pass through dying
+ * states before they are dead, and Larger than Life rules, whose neighborhoods reach further than the
+ * adjacent cells. A rule is compiled once into a transition table indexed by state and live neighbor
+ * count, so applying it to a cell is a single table lookup.
+ *
+ * State 0 is dead and state 1 is alive; in rules with more than 2 states, a live cell that does not
+ * survive moves to state 2 and each dying state moves to the next, until the last returns to dead. Only
+ * live cells are counted as neighbors. Rules are written in either of two notations:
+ *
+ * B/S notation, with an optional number of states: B3/S23 (Conway's Game of Life), B36/S23 (HighLife),
+ * B2/S/C3 (Brian's Brain). The older S/B/C order without letters, i.e. 23/3, is also accepted
+ * Larger than Life notation: R5,C0,M1,S34..58,B34..45,NM, giving the radius, the number of states
+ * (0 or 2 for 2 states), whether the cell counts itself (M1) or not (M0), the survival and birth counts
+ * as single counts or ranges separated by commas, and a Moore (NM) or von Neumann (NN) neighborhood
+ *
+ * @author Stephen
+ *
+ */
+public class OuterTotalisticRule {
+
+	public static final int DEAD = 0;
+	public static final int ALIVE = 1;
+	public static final OuterTotalisticRule CONWAY = parse("B3/S23");
+	private static final int MAXIMUM_STATES = Byte.MAX_VALUE;
+	private static final int FIRST_DYING_STATE = 2;
+	private static final String ERROR_MESSAGE_INVALID_RULE = "Invalid Rule: ";
+	private static final String RULE_SEPARATOR = "/";
+	private static final String LARGER_THAN_LIFE_SEPARATOR = ",";
+	private static final String RANGE_SEPARATOR = "..";
+	private static final String ALTERNATE_RANGE_SEPARATOR = "-";
+	private static final String UNLETTERED_ORDER = "SBC";
+	private final NeighborhoodType neighborhoodType;
+	private final int radius;
+	private final int numberOfStates;
+	private final boolean countsItself;
+	private final boolean[] birth;
+	private final boolean[] survival;
+	private final int countsPerState;
+	private final byte[] transitions;
+
+	/**
+	 * Compiles a rule into its transition table
+	 * @param neighborhoodType: shape of the neighborhood whose live cells are counted
+	 * @param radius: radius of the neighborhood
+	 * @param numberOfStates: the number of states, including dead, alive and every dying state
+	 * @param countsItself: true if a live cell counts itself among its live neighbors; false otherwise
+	 * @param birth: the live neighbor counts at which a dead cell comes alive, indexed by count
+	 * @param survival: the live neighbor counts at which a live cell stays alive, indexed by count
+	 */
+	private OuterTotalisticRule(NeighborhoodType neighborhoodType, int radius, int numberOfStates, boolean countsItself,
+			boolean[] birth, boolean[] survival) {
+		this.neighborhoodType = neighborhoodType;
+		this.radius = radius;
+		this.numberOfStates = numberOfStates;
+		this.countsItself = countsItself;
+		this.birth = birth;
+		this.survival = survival;
+		countsPerState = neighborhoodType.size(radius) + 1;
+		transitions = new byte[numberOfStates * countsPerState];
+		for (int count = 0; count < countsPerState; count++) {
+			transitions[DEAD * countsPerState + count] = (byte) (birth[count] ? ALIVE : DEAD);
+			boolean survives = survival[countsItself ? count + 1 : count];
+			transitions[ALIVE * countsPerState + count] = (byte) (survives ? ALIVE : getDyingState(ALIVE));
+			for (int state = FIRST_DYING_STATE; state < numberOfStates; state++) {
+				transitions[state * countsPerState + count] = (byte) getDyingState(state);
+			}
+		}
+	}
+
+	/**
+	 * Parses a rule written in B/S or Larger than Life notation
+	 * @param rule: the rule, i.e. B36/S23, B2/S/C3 or R5,C0,M1,S34..58,B34..45,NM
+	 * @return the compiled rule
+	 * @throws IllegalArgumentException if the rule cannot be parsed
+	 */
+	public static OuterTotalisticRule parse(String rule) {
+		String trimmed = rule.trim().toUpperCase();
+		try {
+			return trimmed.contains(LARGER_THAN_LIFE_SEPARATOR) ? parseLargerThanLife(trimmed) : parseBirthSurvival(trimmed);
+		} catch (RuntimeException e) {
+			throw new IllegalArgumentException(ERROR_MESSAGE_INVALID_RULE + rule, e);
+		}
+	}
+
+	/**
+	 * @param state: the state of a cell
+	 * @param liveNeighbors: the number of live cells in the cell's neighborhood, not counting the cell itself
+	 * @return the cell's next state
+	 */
+	public int getNextState(int state, int liveNeighbors) {
+		return transitions[state * countsPerState + liveNeighbors];
+	}
+
+	/**
+	 * @return the transition table, holding the next state of a cell in state s with n live neighbors,
+	 * not counting the cell itself, at index s * getCountsPerState() + n
+	 */
+	public byte[] getTransitions() {
+		return Arrays.copyOf(transitions, transitions.length);
+	}
+
+	/**
+	 * @return the number of live neighbor counts the transition table holds for each state
+	 */
+	public int getCountsPerState() {
+		return countsPerState;
+	}
+
+	/**
+	 * @return shape of the neighborhood whose live cells are counted
+	 */
+	public NeighborhoodType getNeighborhoodType() {
+		return neighborhoodType;
+	}
+
+	/**
+	 * @return radius of the neighborhood whose live cells are counted
+	 */
+	public int getRadius() {
+		return radius;
+	}
+
+	/**
+	 * @return the number of states, including dead, alive and every dying state
+	 */
+	public int getNumberOfStates() {
+		return numberOfStates;
+	}
+
+	/**
+	 * @return true if dead cells with no live neighbors come alive, so that cells can change even
+	 * though nothing around them did; false otherwise
+	 */
+	public boolean hasBirthWithoutNeighbors() {
+		return birth[0];
+	}
+
+	/**
+	 * Two rules are equal if they have the same neighborhood and transition table, however they were written
+	 */
+	@Override
+	public boolean equals(Object other) {
+		if (!(other instanceof OuterTotalisticRule)) return false;
+		OuterTotalisticRule rule = (OuterTotalisticRule) other;
+		return neighborhoodType == rule.neighborhoodType && radius == rule.radius && Arrays.equals(transitions, rule.transitions);
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * (31 * neighborhoodType.hashCode() + radius) + Arrays.hashCode(transitions);
+	}
+
+	/**
+	 * @return the rule in B/S notation if it has a radius 1 Moore neighborhood and cells do not count
+	 * themselves; in Larger than Life notation otherwise
+	 */
+	@Override
+	public String toString() {
+		if (neighborhoodType == NeighborhoodType.MOORE && radius == 1 && !countsItself) {
+			StringBuilder rule = new StringBuilder("B").append(listCounts(birth, false)).append("/S").append(listCounts(survival, false));
+			if (numberOfStates > FIRST_DYING_STATE) rule.append("/C").append(numberOfStates);
+			return rule.toString();
+		}
+		return "R" + radius + ",C" + (numberOfStates > FIRST_DYING_STATE ? numberOfStates : 0) + ",M" + (countsItself ? 1 : 0)
+				+ ",S" + listCounts(survival, true) + ",B" + listCounts(birth, true)
+				+ ",N" + (neighborhoodType == NeighborhoodType.MOORE ? "M" : "N");
+	}
+
+	/**
+	 * @param state: a live or dying state
+	 * @return the state a cell in the given state moves to when it is not kept alive
+	 */
+	private int getDyingState(int state) {
+		return state + 1 < numberOfStates ? state + 1 : DEAD;
+	}
+
+	/**
+	 * Parses a rule in B/S notation, i.e. B36/S23 or B2/S/C3, or in S/B notation, i.e. 23/3 or 345/2/4
+	 * @param rule: the rule, in upper case
+	 * @return the compiled rule
+	 */
+	private static OuterTotalisticRule parseBirthSurvival(String rule) {
+		String[] parts = rule.split(RULE_SEPARATOR, -1);
+		int size = NeighborhoodType.MOORE.size(1);
+		boolean[] birth = new boolean[size + 2];
+		boolean[] survival = new boolean[size + 2];
+		int numberOfStates = FIRST_DYING_STATE;
+		if (parts.length < 2 || parts.length > 3) throw new IllegalArgumentException();
+		for (int i = 0; i < parts.length; i++) {
+			String part = parts[i];
+			boolean lettered = !part.isEmpty() && Character.isLetter(part.charAt(0));
+			char letter = lettered ? part.charAt(0) : UNLETTERED_ORDER.charAt(i);
+			String digits = lettered ? part.substring(1) : part;
+			if (letter == 'B') setDigits(birth, digits, size);
+			else if (letter == 'S') setDigits(survival, digits, size);
+			else if (letter == 'C' || letter == 'G') numberOfStates = parseNumberOfStates(digits);
+			else throw new IllegalArgumentException();
+		}
+		return new OuterTotalisticRule(NeighborhoodType.MOORE, 1, numberOfStates, false, birth, survival);
+	}
+
+	/**
+	 * Parses a rule in Larger than Life notation, i.e. R5,C0,M1,S34..58,B34..45,NM
+	 * @param rule: the rule, in upper case
+	 * @return the compiled rule
+	 */
+	private static OuterTotalisticRule parseLargerThanLife(String rule) {
+		String[] parts = rule.split(LARGER_THAN_LIFE_SEPARATOR);
+		int radius = 1;
+		int numberOfStates = FIRST_DYING_STATE;
+		boolean countsItself = false;
+		NeighborhoodType neighborhoodType = NeighborhoodType.MOORE;
+		String survival = "";
+		String birth = "";
+		char list = 0;
+		for (String part : parts) {
+			char letter = part.charAt(0);
+			String value = part.substring(1);
+			if (Character.isDigit(letter) && list == 'S') survival += LARGER_THAN_LIFE_SEPARATOR + part;
+			else if (Character.isDigit(letter) && list == 'B') birth += LARGER_THAN_LIFE_SEPARATOR + part;
+			else if (letter == 'R') radius = Integer.parseInt(value);
+			else if (letter == 'C') numberOfStates = Math.max(FIRST_DYING_STATE, parseNumberOfStates(value));
+			else if (letter == 'M') countsItself = Integer.parseInt(value) == 1;
+			else if (letter == 'S') survival = value;
+			else if (letter == 'B') birth = value;
+			else if (letter == 'N' && value.equals("M")) neighborhoodType = NeighborhoodType.MOORE;
+			else if (letter == 'N' && value.equals("N")) neighborhoodType = NeighborhoodType.VON_NEUMANN;
+			else throw new IllegalArgumentException();
+			if (!Character.isDigit(letter)) list = letter;
+		}
+		if (radius < 1) throw new IllegalArgumentException();
+		int size = neighborhoodType.size(radius);
+		boolean[] survivalCounts = new boolean[size + 2];
+		boolean[] birthCounts = new boolean[size + 2];
+		setRanges(survivalCounts, survival, size + (countsItself ? 1 : 0));
+		setRanges(birthCounts, birth, size);
+		return new OuterTotalisticRule(neighborhoodType, radius, numberOfStates, countsItself, birthCounts, survivalCounts);
+	}
+
+	/**
+	 * Marks each count given as a digit
+	 * @param counts: the counts, indexed by count
+	 * @param digits: the digits, i.e. 23
+	 * @param maximum: the largest count allowed
+	 */
+	private static void setDigits(boolean[] counts, String digits, int maximum) {
+		for (char digit : digits.toCharArray()) {
+			int count = Character.digit(digit, 10);
+			if (count < 0 || count > maximum) throw new IllegalArgumentException();
+			counts[count] = true;
+		}
+	}
+
+	/**
+	 * Marks each count given as a single count or a range of counts
+	 * @param counts: the counts, indexed by count
+	 * @param ranges: the counts and ranges separated by commas, i.e. 2,4..7 or 34-58
+	 * @param maximum: the largest count allowed
+	 */
+	private static void setRanges(boolean[] counts, String ranges, int maximum) {
+		if (ranges.isEmpty()) return;
+		for (String range : ranges.split(LARGER_THAN_LIFE_SEPARATOR)) {
+			String[] bounds = range.contains(RANGE_SEPARATOR) ? range.split("\\.\\.") : range.split(ALTERNATE_RANGE_SEPARATOR);
+			int first = Integer.parseInt(bounds[0]);
+			int last = Integer.parseInt(bounds[bounds.length - 1]);
+			if (bounds.length > 2 || first < 0 || last > maximum || first > last) throw new IllegalArgumentException();
+			for (int count = first; count <= last; count++) {
+				counts[count] = true;
+			}
+		}
+	}
+
+	/**
+	 * @param value: the number of states, as written in a rule
+	 * @return the number of states, where 0 means 2 states
+	 */
+	private static int parseNumberOfStates(String value) {
+		int numberOfStates = Integer.parseInt(value);
+		if (numberOfStates == 0) return FIRST_DYING_STATE;
+		if (numberOfStates < FIRST_DYING_STATE || numberOfStates > MAXIMUM_STATES) throw new IllegalArgumentException();
+		return numberOfStates;
+	}
+
+	/**
+	 * Lists the marked counts
+	 * @param counts: the counts, indexed by count
+	 * @param asRanges: true to list runs of counts as ranges separated by commas, i.e. 2,4..7; false to 
+	 * list every count as a digit, i.e. 23
+	 * @return the marked counts
+	 */
+	private static String listCounts(boolean[] counts, boolean asRanges) {
+		StringBuilder list = new StringBuilder();
+		for (int count = 0; count < counts.length; count++) {
+			if (!counts[count]) continue;
+			if (!asRanges) {
+				list.append(count);
+				continue;
+			}
+			int last = count;
+			while (last + 1 < counts.length && counts[last + 1]) last++;
+			if (list.length() > 0) list.append(LARGER_THAN_LIFE_SEPARATOR);
+			list.append(count);
+			if (last > count) list.append(RANGE_SEPARATOR).append(last);
+			count = last;
+		}
+		return list.toString();
+	}
+
+}
@@ -0,0 +1,73 @@
+package model.engines;
+
+/**
+ *
+ * Immutable node of a Hashlife quadtree. A node at level L is a square of 2^L by 2^L cells made of
+ * four nodes at level L - 1; a node at level 0 is a single cell. Nodes are canonicalized by
+ * HashlifeUniverse, so two nodes are equal when their four children are the same objects
+ *
+ * @author Stephen
+ *
+ */
+class QuadNode {
+
+	final int level;
+	final QuadNode nw;
+	final QuadNode ne;
+	final QuadNode sw;
+	final QuadNode se;
+	final long population;
+	private final int hash;
+	QuadNode result;
+	QuadNode stepResult;
+	int stepExponent = -1;
+
+	/**
+	 * Instantiates a single cell
+	 * @param alive: true if the cell is alive; false otherwise
+	 */
+	QuadNode(boolean alive) {
+		level = 0;
+		nw = ne = sw = se = null;
+		population = alive ? 1 : 0;
+		hash = alive ? 1 : 0;
+	}
+
+	/**
+	 * Instantiates a node from its four quadrants, which must share the same level
+	 * @param nw: north west quadrant
+	 * @param ne: north east quadrant
+	 * @param sw: south west quadrant
+	 * @param se: south east quadrant
+	 */
+	QuadNode(QuadNode nw, QuadNode ne, QuadNode sw, QuadNode se) {
+		level = nw.level + 1;
+		this.nw = nw;
+		this.ne = ne;
+		this.sw = sw;
+		this.se = se;
+		population = nw.population + ne.population + sw.population + se.population;
+		int h = System.identityHashCode(nw);
+		h = 31 * h + System.identityHashCode(ne);
+		h = 31 * h + System.identityHashCode(sw);
+		h = 31 * h + System.identityHashCode(se);
+		hash = h;
+	}
+
+	/**
+	 * Two nodes are equal when they are the same cell or when their quadrants are the same objects
+	 */
+	@Override
+	public boolean equals(Object other) {
+		if (this == other) return true;
+		if (!(other instanceof QuadNode) || level == 0) return false;
+		QuadNode node = (QuadNode) other;
+		return nw == node.nw && ne == node.ne && sw == node.sw && se == node.se;
+	}
+
+	@Override
+	public int hashCode() {
+		return hash;
+	}
+
+}
@@ -1,24 +1,40 @@
 package model.grid;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.stream.Collectors;
-
-import model.cells.Cell;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
- * 
- * Base class for all Grids. Holds Simulation's matrix of Cells and retrieves neighbors for any given Cell
- * 
+ *
+ * Base class for all Grids. Holds the state of every Cell in two flat buffers (the current generation
+ * and the generation being computed), and retrieves neighbors for any given Cell. Cells are identified
+ * by their index, row * columns + column.
+ *
+ * Each buffer surrounds the Grid with a halo of ghost Cells, so that a Cell's neighbors within the
+ * halo's width are always at the same offsets in the buffer, even on the edges of the Grid. The first
+ * time a neighborhood is requested, every ghost Cell is resolved once through resolveMissingNeighbor:
+ * a ghost Cell that resolves to a Cell holds a copy of that Cell's state, refreshed whenever the
+ * current generation changes, and one that resolves to no neighbor holds a sentinel that matches no
+ * state. Counting and packing neighbors then read the buffer directly, without bounds checks
+ *
  * @author Stephen
- * 
+ *
  */
 public abstract class Grid {
 
-	private final int[] CARDINAL_ROW_OFFSETS = { -1, 1, 0, 0 };
-	private final int[] CARDINAL_COLUMN_OFFSETS = { 0, 0, -1, 1 };
-	private List<List<Cell>> cells;
+	protected static final int NO_NEIGHBOR = -1;
+	private static final int HALO_WIDTH = 1;
+	private static final byte SENTINEL = -1;
+	private static final int POSITION_BITS = 32;
+	private final ConcurrentMap<Integer, Neighborhood> neighborhoods = new ConcurrentHashMap<>();
+	private byte[] currentStates;
+	private byte[] nextStates;
 	private int rows;
 	private int columns;
+	private int stride;
+	private int origin;
+	private int[] haloSources;
+	private int[] haloTargets;
+	private boolean haloHasSentinels;
 
 	/**
 	 * Instantiates a Grid containing a matrix of Cells
@@ -33,135 +49,466 @@ public abstract class Grid {
 
 	/**
 	 * Finds alternate neighbor for cell whose neighbor at given row
-	 * and column does not exist because that point is off the grid
-	 * 
+	 * and column does not exist because that point is off the grid;
+	 * Called once for every ghost Cell of the Grid's halo, and for
+	 * neighbors beyond the halo as they are looked up
+	 *
 	 * @param row: row of missing neighbor
 	 * @param column of missing neighbor
-	 * @return alternate neighbor as defined by subclass
+	 * @return index of alternate neighbor as defined by subclass, or NO_NEIGHBOR
 	 */
-	protected abstract Cell resolveMissingNeighbor(int row, int column);
+	protected abstract int resolveMissingNeighbor(int row, int column);
 
 	/**
-	 * Initializes Grid with row * column null Cells
+	 * Initializes Grid with a state buffer of row * column states surrounded by the halo; The next state
+	 * buffer is only allocated once a Simulation computes its generations in the Grid
 	 */
 	private void initializeGrid() {
-		cells = new ArrayList<>();
+		stride = columns + 2 * HALO_WIDTH;
+		origin = HALO_WIDTH * stride + HALO_WIDTH;
+		currentStates = new byte[(rows + 2 * HALO_WIDTH) * stride];
+	}
+
+	/**
+	 * Allocates the next state buffer, holding a copy of the current generation, unless it has already
+	 * been allocated; Must be called before next states are set, and not while they are being set.
+	 * Grids whose generations are computed by another engine never need it
+	 */
+	public void allocateNextStates() {
+		if (nextStates == null) nextStates = currentStates.clone();
+	}
+
+	/**
+	 * @param row: row of a Cell
+	 * @param column: column of a Cell
+	 * @return the index of the Cell
+	 */
+	public int getIndex(int row, int column) {
+		return row * columns + column;
+	}
+
+	/**
+	 * @param row: row of a Cell, or of a ghost Cell within the halo
+	 * @param column: column of a Cell, or of a ghost Cell within the halo
+	 * @return the position of the Cell's state within the state buffers
+	 */
+	private int getPosition(int row, int column) {
+		return origin + row * stride + column;
+	}
+
+	/**
+	 * @param index: index of a Cell as given by getIndex
+	 * @return the position of the Cell's state within the state buffers
+	 */
+	private int getPosition(int index) {
+		return origin + index + index / columns * (stride - columns);
+	}
+
+	/**
+	 * @param row: row of the Cell
+	 * @param column: column of the Cell
+	 * @return the state of the Cell at the given row and column in the current generation
+	 */
+	public int getState(int row, int column) {
+		return currentStates[getPosition(row, column)];
+	}
+
+	/**
+	 * @param index: index of the Cell as given by getIndex
+	 * @return the state of the Cell at the given index in the current generation
+	 */
+	public int getState(int index) {
+		return currentStates[getPosition(index)];
+	}
+
+	/**
+	 * Overwrites the state of the Cell at the given row and column in the current generation, along with
+	 * the ghost Cells copying it; Used to seed the Grid before the Simulation starts
+	 * @param row: row of the Cell
+	 * @param column: column of the Cell
+	 * @param state: the Cell's new state
+	 */
+	public void setState(int row, int column, int state) {
+		int position = getPosition(row, column);
+		currentStates[position] = (byte) state;
+		if (haloSources == null) return;
+		int ghost = Arrays.binarySearch(haloSources, position);
+		if (ghost < 0) return;
+		while (ghost > 0 && haloSources[ghost - 1] == position) ghost--;
+		for (; ghost < haloSources.length && haloSources[ghost] == position; ghost++) {
+			currentStates[haloTargets[ghost]] = (byte) state;
+		}
+	}
+
+	/**
+	 * Copies the current state of every Cell, indexed as given by getIndex, into an array
+	 * @param states: array of row * column states receiving the copy
+	 */
+	public void copyStates(byte[] states) {
+		for (int row = 0; row < rows; row++) {
+			System.arraycopy(currentStates, getPosition(row, 0), states, getIndex(row, 0), columns);
+		}
+	}
+
+	/**
+	 * Overwrites the current state of every Cell; Used to seed the Grid before the Simulation starts
+	 * @param states: array of row * column states, indexed as given by getIndex
+	 */
+	public void setStates(byte[] states) {
+		for (int row = 0; row < rows; row++) {
+			System.arraycopy(states, getIndex(row, 0), currentStates, getPosition(row, 0), columns);
+		}
+		refreshHalo();
+	}
+
+	/**
+	 * Overwrites the current states of consecutive Cells of a row, along with the ghost Cells copying them;
+	 * Used by engines that hold the generations themselves to bring the Grid up to date
+	 * @param row: row of the Cells
+	 * @param column: column of the first Cell
+	 * @param states: array holding the Cells' states from its start
+	 * @param length: the number of Cells
+	 */
+	public void setStates(int row, int column, byte[] states, int length) {
+		int position = getPosition(row, column);
+		System.arraycopy(states, 0, currentStates, position, length);
+		if (haloSources == null) return;
+		int ghost = Arrays.binarySearch(haloSources, position);
+		if (ghost < 0) ghost = -ghost - 1;
+		while (ghost > 0 && haloSources[ghost - 1] == position) ghost--;
+		for (; ghost < haloSources.length && haloSources[ghost] < position + length; ghost++) {
+			currentStates[haloTargets[ghost]] = currentStates[haloSources[ghost]];
+		}
+	}
+
+	/**
+	 * Sets the state the Cell at the given row and column will hold in the next generation
+	 * @param row: row of the Cell
+	 * @param column: column of the Cell
+	 * @param state: the Cell's state in the next generation
+	 */
+	public void setNextState(int row, int column, int state) {
+		nextStates[getPosition(row, column)] = (byte) state;
+	}
+
+	/**
+	 * Sets the state the Cell at the given index will hold in the next generation
+	 * @param index: index of the Cell as given by getIndex
+	 * @param state: the Cell's state in the next generation
+	 */
+	public void setNextState(int index, int state) {
+		nextStates[getPosition(index)] = (byte) state;
+	}
+
+	/**
+	 * @param index: index of the Cell as given by getIndex
+	 * @return the state the Cell at the given index will hold in the next generation
+	 */
+	public int getNextState(int index) {
+		return nextStates[getPosition(index)];
+	}
+
+	/**
+	 * Copies the current state of the Cell at the given index into the next generation
+	 * @param index: index of the Cell as given by getIndex
+	 */
+	public void carryOverState(int index) {
+		int position = getPosition(index);
+		nextStates[position] = currentStates[position];
+	}
+
+	/**
+	 * Copies the current state of every Cell into the next generation
+	 */
+	public void carryOverStates() {
+		allocateNextStates();
+		System.arraycopy(currentStates, 0, nextStates, 0, currentStates.length);
+	}
+
+	/**
+	 * Makes the next generation the current generation and refreshes its halo. The buffer holding
+	 * the old generation is reused for the generation after that
+	 */
+	public void swapStates() {
+		byte[] previousStates = currentStates;
+		currentStates = nextStates;
+		nextStates = previousStates;
+		refreshHalo();
+	}
+
+	/**
+	 * Lists the Cells whose state changed in the last swap, by comparing the current generation with
+	 * the previous one while the next state buffer still holds it
+	 * @param changedCells: array of row * column Cell indices receiving the changed Cells, in index order
+	 * @return the number of Cells that changed
+	 */
+	public int collectChangedCells(int[] changedCells) {
+		int numberOfChangedCells = 0;
 		for (int row = 0; row < rows; row++) {
-			List<Cell> rowOfCells = new ArrayList<>();
-			for (int col = 0; col < columns; col++) {
-				rowOfCells.add(null);
+			int rowStart = getPosition(row, 0);
+			for (int column = 0; column < columns; column++) {
+				if (currentStates[rowStart + column] != nextStates[rowStart + column]) {
+					changedCells[numberOfChangedCells++] = getIndex(row, column);
+				}
 			}
-			cells.add(rowOfCells);
 		}
+		return numberOfChangedCells;
 	}
 
 	/**
-	 * Sets Cell at given row and column to given Cell
-	 * @param row: row where given Cell is to be placed
-	 * @param column: column where given Cell is to be placed
-	 * @param cell: the Cell to be placed at the given row and column
+	 * @param type: the shape of the neighborhood
+	 * @return the Grid's offset table for the given neighborhood shape with a radius of 1
 	 */
-	public void setCell(int row, int column, Cell cell) {
-		cells.get(row).set(column, cell);
+	public Neighborhood getNeighborhood(NeighborhoodType type) {
+		return getNeighborhood(type, 1);
 	}
 
 	/**
-	 * Retrieves the Cell at a given row and column
-	 * @param row: row of the Cell to be retrieved
-	 * @param column: column of the Cell to be retrieved
-	 * @return: Cell at the given row and column
+	 * Retrieves the Grid's offset table for the given neighborhood shape and radius. Each table is
+	 * built the first time it is requested and shared by every later caller; tables are immutable,
+	 * so lookups may be made from any number of threads. The halo is built with the first table
+	 * @param type: the shape of the neighborhood
+	 * @param radius: the radius of the neighborhood
+	 * @return the Grid's offset table for the given neighborhood shape and radius
 	 */
-	public Cell getCell(int row, int column) {
-		return cells.get(row).get(column);
+	public Neighborhood getNeighborhood(NeighborhoodType type, int radius) {
+		buildHalo();
+		int key = radius * NeighborhoodType.values().length + type.ordinal();
+		Neighborhood neighborhood = neighborhoods.get(key);
+		if (neighborhood == null) {
+			int[][] offsets = type.offsets(radius);
+			boolean withinHalo = radius <= HALO_WIDTH && rows > 2 * radius && columns > 2 * radius;
+			neighborhood = neighborhoods.computeIfAbsent(key, k -> new Neighborhood(offsets[0], offsets[1], columns, stride, withinHalo));
+		}
+		return neighborhood;
 	}
 
 	/**
-	 * Searches the 4 cardinal directions (NORTH, SOUTH, EAST, WEST)
-	 * for neighbors of the Cell at the given row and column
+	 * Writes the indices of the neighbors of the Cell at the given row and column into the
+	 * given array without allocating. Neighbors that are off the Grid are resolved by the
+	 * subclass; neighbors that cannot be resolved or that wrap back onto the Cell itself are skipped
 	 * @param row: row of the Cell
 	 * @param column: column of the Cell
-	 * @return List of cardinal neighbors for the Cell at given row and column
+	 * @param neighborhood: offset table of the neighbors to be found
+	 * @param neighbors: array receiving the neighbor indices; must hold at least neighborhood.size() entries
+	 * @return the number of neighbor indices written to the array
 	 */
-	public List<Cell> getCardinalNeighbors(int row, int column) {
-		List<Cell> neighbors = new ArrayList<>();
-		for (int i = 0; i < CARDINAL_ROW_OFFSETS.length; i++) {
-			int neighborRow = row + CARDINAL_ROW_OFFSETS[i];
-			int neighborColumn = column + CARDINAL_COLUMN_OFFSETS[i];
-			Cell neighbor = getNeighbor(neighborRow, neighborColumn);
-			if (neighbor != null)
-				neighbors.add(neighbor);
+	public int getNeighborIndices(int row, int column, Neighborhood neighborhood, int[] neighbors) {
+		int index = getIndex(row, column);
+		if (neighborhoodInBounds(row, column, neighborhood)) {
+			for (int i = 0; i < neighborhood.size(); i++) {
+				neighbors[i] = index + neighborhood.indexOffset(i);
+			}
+			return neighborhood.size();
 		}
-		return neighbors;
+		int count = 0;
+		for (int i = 0; i < neighborhood.size(); i++) {
+			int neighbor = getNeighbor(row + neighborhood.rowOffset(i), column + neighborhood.columnOffset(i));
+			if (neighbor != NO_NEIGHBOR && neighbor != index) {
+				neighbors[count++] = neighbor;
+			}
+		}
+		return count;
 	}
 
 	/**
-	 * Searches the 8 Cells adjacent to the Cell at the given row and column 
+	 * Counts the neighbors of the Cell at the given row and column that are in the given state
+	 * in the current generation without allocating
 	 * @param row: row of the Cell
 	 * @param column: column of the Cell
-	 * @return List of all neighbors surrounding the Cell at the given row and column
-	 */
-	public List<Cell> getAllNeighbors(int row, int column) {
-		List<Cell> neighbors = new ArrayList<>();
-		for (int rowOffset = -1; rowOffset <= 1; rowOffset++) {
-			for (int columnOffset = -1; columnOffset <= 1; columnOffset++) {
-				if (!(rowOffset == 0 && columnOffset == 0)) {
-					int neighborRow = row + rowOffset;
-					int neighborColumn = column + columnOffset;
-					Cell neighbor = getNeighbor(neighborRow, neighborColumn);
-					if (neighbor != null) {
-						neighbors.add(neighbor);
-					}
-				}
+	 * @param neighborhood: offset table of the neighbors to be checked
+	 * @param state: the state being counted
+	 * @return the number of neighbors in the given state
+	 */
+	public int countNeighborsInState(int row, int column, Neighborhood neighborhood, int state) {
+		int position = getPosition(row, column);
+		int count = 0;
+		if (neighborhood.isWithinHalo() || neighborhoodInBounds(row, column, neighborhood)) {
+			for (int i = 0; i < neighborhood.size(); i++) {
+				count += currentStates[position + neighborhood.positionOffset(i)] == state ? 1 : 0;
 			}
+			return count;
+		}
+		int index = getIndex(row, column);
+		for (int i = 0; i < neighborhood.size(); i++) {
+			int neighbor = getNeighbor(row + neighborhood.rowOffset(i), column + neighborhood.columnOffset(i));
+			if (neighbor != NO_NEIGHBOR && neighbor != index && getState(neighbor) == state) count++;
+		}
+		return count;
+	}
+
+	/**
+	 * Packs the current states of the Cell at the given row and column and of its neighbors into a key,
+	 * each state taking bitsPerState bits: the first neighbor in the lowest bits and the Cell itself above
+	 * the last neighbor. Neighbors that cannot be resolved or that wrap back onto the Cell read as state 0
+	 * @param row: row of the Cell
+	 * @param column: column of the Cell
+	 * @param neighborhood: offset table of the neighbors to be packed
+	 * @param bitsPerState: the number of bits each state takes
+	 * @return the packed key
+	 */
+	public int packNeighborhood(int row, int column, Neighborhood neighborhood, int bitsPerState) {
+		int position = getPosition(row, column);
+		int key = currentStates[position] << (neighborhood.size() * bitsPerState);
+		if (!neighborhood.isWithinHalo() && !neighborhoodInBounds(row, column, neighborhood)) {
+			return key | packMissingNeighborhood(row, column, neighborhood, bitsPerState);
+		}
+		for (int i = 0; i < neighborhood.size(); i++) {
+			key |= withoutSentinel(currentStates[position + neighborhood.positionOffset(i)]) << (i * bitsPerState);
+		}
+		return key;
+	}
+
+	/**
+	 * Packs the key of every Cell in a row as packNeighborhood does, one neighbor at a time across the
+	 * whole row so that the Cells are packed by straight array loops; Only Cells that may read the
+	 * sentinel of a ghost Cell are packed one at a time
+	 * @param row: the row
+	 * @param neighborhood: offset table of the neighbors to be packed
+	 * @param bitsPerState: the number of bits each state takes
+	 * @param keys: array of at least columns entries receiving the key of each Cell, indexed by column
+	 */
+	public void packNeighborhoods(int row, Neighborhood neighborhood, int bitsPerState, int[] keys) {
+		int rowStart = getPosition(row, 0);
+		int radius = neighborhood.getRadius();
+		int stateShift = neighborhood.size() * bitsPerState;
+		for (int column = 0; column < columns; column++) {
+			keys[column] = currentStates[rowStart + column] << stateShift;
+		}
+		boolean rowInBounds = row >= radius && row < rows - radius;
+		boolean haloWithoutSentinels = neighborhood.isWithinHalo() && !haloHasSentinels;
+		int firstInBounds = haloWithoutSentinels ? 0 : rowInBounds ? Math.min(radius, columns) : columns;
+		int lastInBounds = haloWithoutSentinels ? columns : rowInBounds ? Math.max(firstInBounds, columns - radius) : columns;
+		for (int i = 0; i < neighborhood.size(); i++) {
+			int neighborStart = rowStart + neighborhood.positionOffset(i);
+			int shift = i * bitsPerState;
+			for (int column = firstInBounds; column < lastInBounds; column++) {
+				keys[column] |= currentStates[neighborStart + column] << shift;
+			}
+		}
+		for (int column = 0; column < firstInBounds; column++) {
+			keys[column] |= packEdgeNeighborhood(row, column, neighborhood, bitsPerState);
+		}
+		for (int column = lastInBounds; column < columns; column++) {
+			keys[column] |= packEdgeNeighborhood(row, column, neighborhood, bitsPerState);
 		}
-		return neighbors;
 	}
-	
+
 	/**
-	 * Searches for neighbors in the 4 cardinal directions that are multiplier - 1
-	 * cells away from the given row and column
-	 * @param multiplier: multiplier to be applied to base row/column offsets 
-	 * @return List of extended cardinal neighbors (For example, if the row = 3, column = 3,
-	 * multiplier = 2, then the method will return the neighbors at (5,3), (1,3), (3,5), (3,1)
+	 * Packs the states of the neighbors of a Cell whose neighborhood is partly off the Grid, from the
+	 * halo if it holds the whole neighborhood
+	 * @param row: row of the Cell
+	 * @param column: column of the Cell
+	 * @param neighborhood: offset table of the neighbors to be packed
+	 * @param bitsPerState: the number of bits each state takes
+	 * @return the packed states of the neighbors, without the Cell's own state
 	 */
-	public List<Cell> getExtendedCardinalNeighobors(int row, int column, int multiplier) {
-		if (multiplier == 0) return getCardinalNeighbors(row, column);
-		for (int i = 0; i < CARDINAL_ROW_OFFSETS.length; i++) {
-			CARDINAL_ROW_OFFSETS[i] *= multiplier;
-			CARDINAL_COLUMN_OFFSETS[i] *= multiplier;
+	private int packEdgeNeighborhood(int row, int column, Neighborhood neighborhood, int bitsPerState) {
+		if (!neighborhood.isWithinHalo()) return packMissingNeighborhood(row, column, neighborhood, bitsPerState);
+		int position = getPosition(row, column);
+		int key = 0;
+		for (int i = 0; i < neighborhood.size(); i++) {
+			key |= withoutSentinel(currentStates[position + neighborhood.positionOffset(i)]) << (i * bitsPerState);
 		}
-		List<Cell> extendedCardinalNeighbors = getCardinalNeighbors(row, column);
-		extendedCardinalNeighbors = filterNeighborList(extendedCardinalNeighbors, row, column);
-		for (int i = 0; i < CARDINAL_ROW_OFFSETS.length; i++) {
-			CARDINAL_ROW_OFFSETS[i] /= multiplier;
-			CARDINAL_COLUMN_OFFSETS[i] /= multiplier;
+		return key;
+	}
+
+	/**
+	 * Packs the states of the neighbors of a Cell whose neighborhood reaches beyond the halo, resolving
+	 * each neighbor through the subclass
+	 * @param row: row of the Cell
+	 * @param column: column of the Cell
+	 * @param neighborhood: offset table of the neighbors to be packed
+	 * @param bitsPerState: the number of bits each state takes
+	 * @return the packed states of the neighbors, without the Cell's own state
+	 */
+	private int packMissingNeighborhood(int row, int column, Neighborhood neighborhood, int bitsPerState) {
+		int index = getIndex(row, column);
+		int key = 0;
+		for (int i = 0; i < neighborhood.size(); i++) {
+			int neighbor = getNeighbor(row + neighborhood.rowOffset(i), column + neighborhood.columnOffset(i));
+			if (neighbor != NO_NEIGHBOR && neighbor != index) key |= getState(neighbor) << (i * bitsPerState);
 		}
-		return extendedCardinalNeighbors;
+		return key;
 	}
-	
+
 	/**
-	 * Removes neighbors from list of neighbors if neighbor found is actually
-	 * the original Cell
-	 * @param neighbors: list of neighbors to be filtered
-	 * @param row: row of the original Cell
-	 * @param column: column of the original Cell
+	 * @param state: a state read from the buffer
+	 * @return the state, or 0 if it is the sentinel of a ghost Cell with no neighbor
 	 */
-	private List<Cell> filterNeighborList(List<Cell> neighbors, int row, int column) {
-		return neighbors.stream().filter(cell -> !(cell.getRow() == row && cell.getColumn() == column)).collect(Collectors.toList());
+	private static int withoutSentinel(int state) {
+		return state & ~(state >> (Integer.SIZE - 1));
 	}
 
 	/**
-	 * 
+	 * Resolves every ghost Cell of the halo through the subclass, the first time it is called: ghost
+	 * Cells with no neighbor are given the sentinel in both buffers, and the others are listed in order
+	 * of the position of the Cell they copy, then filled
+	 */
+	private synchronized void buildHalo() {
+		if (haloSources != null) return;
+		long[] ghosts = new long[currentStates.length - rows * columns];
+		int numberOfGhosts = 0;
+		for (int row = -HALO_WIDTH; row < rows + HALO_WIDTH; row++) {
+			for (int column = -HALO_WIDTH; column < columns + HALO_WIDTH; column++) {
+				if (inBounds(row, column)) continue;
+				int neighbor = resolveMissingNeighbor(row, column);
+				int target = getPosition(row, column);
+				if (neighbor == NO_NEIGHBOR) {
+					haloHasSentinels = true;
+					currentStates[target] = SENTINEL;
+					if (nextStates != null) nextStates[target] = SENTINEL;
+				}
+				else {
+					ghosts[numberOfGhosts++] = (long) getPosition(neighbor) << POSITION_BITS | target;
+				}
+			}
+		}
+		Arrays.sort(ghosts, 0, numberOfGhosts);
+		int[] sources = new int[numberOfGhosts];
+		haloTargets = new int[numberOfGhosts];
+		for (int ghost = 0; ghost < numberOfGhosts; ghost++) {
+			sources[ghost] = (int) (ghosts[ghost] >>> POSITION_BITS);
+			haloTargets[ghost] = (int) ghosts[ghost];
+		}
+		haloSources = sources;
+		refreshHalo();
+	}
+
+	/**
+	 * Copies the current state of every Cell that ghost Cells copy into those ghost Cells
+	 */
+	private void refreshHalo() {
+		if (haloSources == null) return;
+		for (int ghost = 0; ghost < haloSources.length; ghost++) {
+			currentStates[haloTargets[ghost]] = currentStates[haloSources[ghost]];
+		}
+	}
+
+	/**
+	 *
 	 * @param row: row of neighbor to be returned
 	 * @param column: column of neighbor to be returned
-	 * @return the Cell at the given row and column, or an alternate Cell as defined by the subclass
+	 * @return the index of the Cell at the given row and column, or of an alternate Cell as defined by the subclass
 	 */
-	private Cell getNeighbor(int row, int column) {
+	private int getNeighbor(int row, int column) {
 		if (inBounds(row, column))
-			return cells.get(row).get(column);
+			return getIndex(row, column);
 		return resolveMissingNeighbor(row, column);
 	}
 
+	/**
+	 * Checks whether every neighbor of the Cell at the given row and column is on the Grid
+	 * @param row: row of the Cell
+	 * @param column: column of the Cell
+	 * @param neighborhood: offset table of the neighbors
+	 * @return true if the whole neighborhood is on the Grid; false otherwise
+	 */
+	private boolean neighborhoodInBounds(int row, int column, Neighborhood neighborhood) {
+		int radius = neighborhood.getRadius();
+		return row >= radius && column >= radius && row < rows - radius && column < columns - radius;
+	}
+
 	/**
 	 * Checks whether a point is within the bounds of the grid
 	 * @param row: row of the point
@@ -172,6 +519,13 @@ public abstract class Grid {
 		return row >= 0 && column >= 0 && row < rows && column < columns;
 	}
 
+	/**
+	 * @return true if the Grid's edges wrap around to the opposite side; false otherwise
+	 */
+	public boolean wrapsAround() {
+		return false;
+	}
+
 	/**
 	 * @return the number of rows in the grid
 	 */
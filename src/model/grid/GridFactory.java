@@ -0,0 +1,20 @@
+package model.grid;
+
+/**
+ * 
+ * Creates Grids of one type; Registered with a SimulationRegistry under the type's name, 
+ * as given in the gridType tag of XML files
+ * 
+ * @author Stephen
+ *
+ */
+public interface GridFactory {
+
+	/**
+	 * @param rows: the number of rows in the Grid
+	 * @param columns: the number of columns in the Grid
+	 * @return a Grid of the factory's type in which every Cell is in state 0
+	 */
+	Grid createGrid(int rows, int columns);
+
+}
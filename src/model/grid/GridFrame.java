@@ -0,0 +1,99 @@
+package model.grid;
+
+/**
+ * 
+ * A completed generation of a Grid, copied out of the Grid so that a view can draw it on its own thread 
+ * while the Simulation goes on computing later generations. Lists the Cells that changed since the 
+ * previous frame the view took, so that only those need to be redrawn. Frames handed over through a
+ * GridFrameBuffer are reused: a frame belongs to the view only until it takes the next one
+ * 
+ * @author Stephen
+ *
+ */
+public class GridFrame {
+
+	public static final int ALL_CELLS_CHANGED = -1;
+	private final byte[] states;
+	private final int[] changedCells;
+	private int numberOfChangedCells;
+	private long generation;
+
+	/**
+	 * Instantiates a frame with room for every Cell of a Grid and for a list of up to the given number of changed Cells
+	 * @param numberOfCells: the number of Cells in the Grid
+	 * @param changedCellsCapacity: the largest number of changed Cells the frame can list
+	 */
+	GridFrame(int numberOfCells, int changedCellsCapacity) {
+		states = new byte[numberOfCells];
+		changedCells = new int[changedCellsCapacity];
+	}
+
+	/**
+	 * Copies the current generation of a Grid into a frame in which no Cell has changed
+	 * @param grid: the Grid
+	 * @param generation: the generation the Grid holds
+	 * @return the frame
+	 */
+	public static GridFrame capture(Grid grid, long generation) {
+		GridFrame frame = new GridFrame(grid.getNumberOfRows() * grid.getNumberOfColumns(), 0);
+		frame.copyStates(grid, generation);
+		return frame;
+	}
+
+	/**
+	 * Overwrites the frame's states with the current generation of a Grid
+	 * @param grid: the Grid, which must have as many Cells as the frame
+	 * @param generation: the generation the Grid holds
+	 */
+	void copyStates(Grid grid, long generation) {
+		grid.copyStates(states);
+		this.generation = generation;
+	}
+
+	/**
+	 * @return the array listing the changed Cells, which the frame's writer fills in
+	 */
+	int[] getChangedCellsArray() {
+		return changedCells;
+	}
+
+	/**
+	 * @param numberOfChangedCells: the number of valid indices in the changed Cells array, or 
+	 * ALL_CELLS_CHANGED if every Cell is to be redrawn
+	 */
+	void setNumberOfChangedCells(int numberOfChangedCells) {
+		this.numberOfChangedCells = numberOfChangedCells;
+	}
+
+	/**
+	 * @return the generation the frame shows
+	 */
+	public long getGeneration() {
+		return generation;
+	}
+
+	/**
+	 * @param index: index of a Cell as given by the Grid's getIndex
+	 * @return the Cell's state in the frame
+	 */
+	public int getState(int index) {
+		return states[index];
+	}
+
+	/**
+	 * @return indices of the Cells that changed since the previous frame, of which the first
+	 * getNumberOfChangedCells are valid
+	 */
+	public int[] getChangedCells() {
+		return changedCells;
+	}
+
+	/**
+	 * @return the number of Cells that changed since the previous frame, or ALL_CELLS_CHANGED if 
+	 * too many changed to be listed
+	 */
+	public int getNumberOfChangedCells() {
+		return numberOfChangedCells;
+	}
+
+}
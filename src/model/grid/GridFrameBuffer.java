@@ -0,0 +1,184 @@
+package model.grid;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ *
+ * Hands frames of a Grid from the thread running its Simulation to the thread drawing it without either
+ * thread ever waiting for the other. Three frames are reused in turn: the writer fills the back frame
+ * and publishes it by swapping it with the middle frame, and the reader takes the middle frame by
+ * swapping it with the front frame it has finished drawing. Both swaps are a single atomic exchange of
+ * the middle frame's index, so the reader always gets a complete generation, never one being written,
+ * and the writer simply overwrites a published frame the reader has not taken yet.
+ *
+ * Since the reader skips frames that are overwritten before it takes them, each frame lists every Cell
+ * that changed since the last frame the writer knows the reader took, which includes every change since
+ * the frame the reader actually drew. Lists longer than a quarter of the Grid are not kept, and the
+ * frame tells the reader to redraw every Cell instead
+ *
+ * @author Stephen
+ *
+ */
+public class GridFrameBuffer {
+
+	private static final int INDEX_MASK = 3;
+	private static final int PUBLISHED = 4;
+	private static final int CHANGED_CELLS_DIVISOR = 4;
+	private static final byte CHANGED_BEFORE_LAST_PUBLISHED = 1;
+	private static final byte CHANGED_SINCE_LAST_PUBLISHED = 2;
+	private final GridFrame[] frames;
+	private final AtomicInteger middle;
+	private int back;
+	private int front;
+	private final byte[] changeMarks;
+	private final int changedCellsCapacity;
+	private int[] changedBeforeLastPublished;
+	private int numberChangedBeforeLastPublished;
+	private int[] changedSinceLastPublished;
+	private int numberChangedSinceLastPublished;
+
+	/**
+	 * Instantiates a buffer with no published frame
+	 * @param numberOfCells: the number of Cells in the Grid
+	 */
+	public GridFrameBuffer(int numberOfCells) {
+		changedCellsCapacity = Math.max(1, numberOfCells / CHANGED_CELLS_DIVISOR);
+		frames = new GridFrame[3];
+		for (int i = 0; i < frames.length; i++) {
+			frames[i] = new GridFrame(numberOfCells, changedCellsCapacity);
+		}
+		front = 0;
+		middle = new AtomicInteger(1);
+		back = 2;
+		changeMarks = new byte[numberOfCells];
+		changedBeforeLastPublished = new int[changedCellsCapacity];
+		changedSinceLastPublished = new int[changedCellsCapacity];
+	}
+
+	/**
+	 * Records Cells that changed since the last frame was published; Called by the writer only
+	 * @param changedCells: indices of the Cells that changed, as given by the Grid's getIndex
+	 * @param numberOfChangedCells: the number of valid indices in the array
+	 */
+	public void recordChanges(int[] changedCells, int numberOfChangedCells) {
+		if (numberChangedSinceLastPublished < 0) return;
+		for (int i = 0; i < numberOfChangedCells; i++) {
+			int cell = changedCells[i];
+			if ((changeMarks[cell] & CHANGED_SINCE_LAST_PUBLISHED) != 0) continue;
+			if (numberChangedSinceLastPublished == changedCellsCapacity) {
+				numberChangedSinceLastPublished = GridFrame.ALL_CELLS_CHANGED;
+				unmark(changedSinceLastPublished, changedCellsCapacity, CHANGED_SINCE_LAST_PUBLISHED);
+				return;
+			}
+			changeMarks[cell] |= CHANGED_SINCE_LAST_PUBLISHED;
+			changedSinceLastPublished[numberChangedSinceLastPublished++] = cell;
+		}
+	}
+
+	/**
+	 * Copies the current generation of a Grid into the back frame, along with the Cells changed since the
+	 * last frame known to be taken, and publishes it; Called by the writer only
+	 * @param grid: the Grid, which must have as many Cells as the buffer
+	 * @param generation: the generation the Grid holds
+	 */
+	public void publish(Grid grid, long generation) {
+		GridFrame frame = frames[back];
+		frame.copyStates(grid, generation);
+		frame.setNumberOfChangedCells(listChanges(frame.getChangedCellsArray()));
+		int previous = middle.getAndSet(back | PUBLISHED);
+		back = previous & INDEX_MASK;
+		if ((previous & PUBLISHED) == 0) forgetChangesBeforeLastPublished();
+		else keepChangesBeforeLastPublished();
+	}
+
+	/**
+	 * Takes the most recently published frame, if it has not already been taken, and gives the frame taken
+	 * before it back to the writer; Called by the reader only
+	 * @return the frame, which the reader may use until it takes the next one, or null if no frame has been
+	 * published since the last one was taken
+	 */
+	public GridFrame takeFrame() {
+		if ((middle.get() & PUBLISHED) == 0) return null;
+		front = middle.getAndSet(front) & INDEX_MASK;
+		return frames[front];
+	}
+
+	/**
+	 * Lists every Cell changed since the last frame known to be taken
+	 * @param changedCells: array receiving the list
+	 * @return the number of Cells listed, or ALL_CELLS_CHANGED if too many changed to be listed
+	 */
+	private int listChanges(int[] changedCells) {
+		if (numberChangedBeforeLastPublished < 0 || numberChangedSinceLastPublished < 0) return GridFrame.ALL_CELLS_CHANGED;
+		System.arraycopy(changedBeforeLastPublished, 0, changedCells, 0, numberChangedBeforeLastPublished);
+		int numberOfChangedCells = numberChangedBeforeLastPublished;
+		for (int i = 0; i < numberChangedSinceLastPublished; i++) {
+			int cell = changedSinceLastPublished[i];
+			if ((changeMarks[cell] & CHANGED_BEFORE_LAST_PUBLISHED) != 0) continue;
+			if (numberOfChangedCells == changedCellsCapacity) return GridFrame.ALL_CELLS_CHANGED;
+			changedCells[numberOfChangedCells++] = cell;
+		}
+		return numberOfChangedCells;
+	}
+
+	/**
+	 * The frame published before the one just published was taken, so only the changes since it are kept
+	 */
+	private void forgetChangesBeforeLastPublished() {
+		if (numberChangedBeforeLastPublished > 0) {
+			unmark(changedBeforeLastPublished, numberChangedBeforeLastPublished, CHANGED_BEFORE_LAST_PUBLISHED);
+		}
+		for (int i = 0; i < numberChangedSinceLastPublished; i++) {
+			changeMarks[changedSinceLastPublished[i]] = CHANGED_BEFORE_LAST_PUBLISHED;
+		}
+		int[] list = changedBeforeLastPublished;
+		changedBeforeLastPublished = changedSinceLastPublished;
+		numberChangedBeforeLastPublished = numberChangedSinceLastPublished;
+		changedSinceLastPublished = list;
+		numberChangedSinceLastPublished = 0;
+	}
+
+	/**
+	 * The frame published before the one just published was overwritten without being taken, so the changes
+	 * it listed are kept along with those since it
+	 */
+	private void keepChangesBeforeLastPublished() {
+		if (numberChangedSinceLastPublished < 0 || numberChangedBeforeLastPublished < 0) {
+			if (numberChangedSinceLastPublished > 0) {
+				unmark(changedSinceLastPublished, numberChangedSinceLastPublished, CHANGED_SINCE_LAST_PUBLISHED);
+			}
+			if (numberChangedBeforeLastPublished > 0) {
+				unmark(changedBeforeLastPublished, numberChangedBeforeLastPublished, CHANGED_BEFORE_LAST_PUBLISHED);
+			}
+			numberChangedBeforeLastPublished = GridFrame.ALL_CELLS_CHANGED;
+			numberChangedSinceLastPublished = 0;
+			return;
+		}
+		for (int i = 0; i < numberChangedSinceLastPublished; i++) {
+			int cell = changedSinceLastPublished[i];
+			changeMarks[cell] &= ~CHANGED_SINCE_LAST_PUBLISHED;
+			if ((changeMarks[cell] & CHANGED_BEFORE_LAST_PUBLISHED) != 0 || numberChangedBeforeLastPublished < 0) continue;
+			if (numberChangedBeforeLastPublished == changedCellsCapacity) {
+				unmark(changedBeforeLastPublished, numberChangedBeforeLastPublished, CHANGED_BEFORE_LAST_PUBLISHED);
+				numberChangedBeforeLastPublished = GridFrame.ALL_CELLS_CHANGED;
+				continue;
+			}
+			changeMarks[cell] |= CHANGED_BEFORE_LAST_PUBLISHED;
+			changedBeforeLastPublished[numberChangedBeforeLastPublished++] = cell;
+		}
+		numberChangedSinceLastPublished = 0;
+	}
+
+	/**
+	 * Clears a mark from every listed Cell
+	 * @param cells: indices of the Cells
+	 * @param numberOfCells: the number of valid indices in the array
+	 * @param mark: the mark to clear
+	 */
+	private void unmark(int[] cells, int numberOfCells, byte mark) {
+		for (int i = 0; i < numberOfCells; i++) {
+			changeMarks[cells[i]] &= ~mark;
+		}
+	}
+
+}
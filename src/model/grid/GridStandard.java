@@ -1,5 +1,4 @@
 package model.grid;
-import model.cells.Cell;
 
 /**
  *
@@ -19,10 +18,11 @@ public class GridStandard extends Grid {
     }
 
     /**
-     * Returns a null Cell indicating that no alternate neighbor is available
+     * Returns NO_NEIGHBOR indicating that no alternate neighbor is available,
+     * so that the halo holds the sentinel
      */
     @Override
-    protected Cell resolveMissingNeighbor(int row, int column) {
-        return null;
+    protected int resolveMissingNeighbor(int row, int column) {
+        return NO_NEIGHBOR;
     }
 }
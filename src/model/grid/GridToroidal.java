@@ -1,5 +1,4 @@
 package model.grid;
-import model.cells.Cell;
 
 /**
  * a Grid with toroidal (wrapping) Grid edges
@@ -19,13 +18,21 @@ public class GridToroidal extends Grid {
 
     /**
      * Return alternate neighbor on other side of the Grid 
-     * by wrapping 
+     * by wrapping, so that the halo copies the opposite edge
      */
     @Override
-    protected Cell resolveMissingNeighbor(int row, int column) {
+    protected int resolveMissingNeighbor(int row, int column) {
         int neighborRow = getNeighborPosition(row, getNumberOfRows());
         int neighborColumn = getNeighborPosition(column, getNumberOfColumns());
-        return getCell(neighborRow, neighborColumn);
+        return getIndex(neighborRow, neighborColumn);
+    }
+
+    /**
+     * A toroidal Grid's edges wrap around
+     */
+    @Override
+    public boolean wrapsAround() {
+        return true;
     }
 
     /**
@@ -35,8 +42,6 @@ public class GridToroidal extends Grid {
      * @return the row or column of the alternate neighbor
      */
     private int getNeighborPosition(int position, int totalPositions) {
-        if (position >= totalPositions) return position % totalPositions;
-        else if (position < 0) return (position % totalPositions) + totalPositions;
-        else return position;
+        return Math.floorMod(position, totalPositions);
     }
 }
@@ -0,0 +1,99 @@
+package model.grid;
+
+/**
+ * 
+ * Immutable offset table describing the neighbors of a Cell in a particular Grid. Holds the row and
+ * column offsets of each neighbor along with the offset of each neighbor's index and of its position
+ * within the Grid's state buffers, which are used directly for Cells whose neighbors are all on the 
+ * Grid or, if the whole neighborhood fits within the Grid's halo, for every Cell
+ * 
+ * @author Stephen
+ *
+ */
+public class Neighborhood {
+
+	private final int[] rowOffsets;
+	private final int[] columnOffsets;
+	private final int[] indexOffsets;
+	private final int[] positionOffsets;
+	private final int radius;
+	private final boolean withinHalo;
+
+	/**
+	 * Instantiates a Neighborhood for a Grid with the given number of columns
+	 * @param rowOffsets: row offset of each neighbor
+	 * @param columnOffsets: column offset of each neighbor
+	 * @param columns: number of columns in the Grid the Neighborhood belongs to
+	 * @param stride: distance between the positions of vertically adjacent Cells in the Grid's state buffers
+	 * @param withinHalo: true if the Grid's halo holds every neighbor of the Cells on its edges; false otherwise
+	 */
+	Neighborhood(int[] rowOffsets, int[] columnOffsets, int columns, int stride, boolean withinHalo) {
+		this.rowOffsets = rowOffsets;
+		this.columnOffsets = columnOffsets;
+		this.withinHalo = withinHalo;
+		indexOffsets = new int[rowOffsets.length];
+		positionOffsets = new int[rowOffsets.length];
+		int maxOffset = 0;
+		for (int i = 0; i < rowOffsets.length; i++) {
+			indexOffsets[i] = rowOffsets[i] * columns + columnOffsets[i];
+			positionOffsets[i] = rowOffsets[i] * stride + columnOffsets[i];
+			maxOffset = Math.max(maxOffset, Math.max(Math.abs(rowOffsets[i]), Math.abs(columnOffsets[i])));
+		}
+		radius = maxOffset;
+	}
+
+	/**
+	 * @return the number of neighbors in the Neighborhood
+	 */
+	public int size() {
+		return rowOffsets.length;
+	}
+
+	/**
+	 * @return the largest row or column distance between a Cell and its neighbors
+	 */
+	public int getRadius() {
+		return radius;
+	}
+
+	/**
+	 * @return true if the neighbors of every Cell, including those on the edges of the Grid, can be
+	 * read from the Grid's state buffers at their position offsets; false otherwise
+	 */
+	boolean isWithinHalo() {
+		return withinHalo;
+	}
+
+	/**
+	 * @param neighbor: position of the neighbor in the table
+	 * @return the neighbor's row offset
+	 */
+	int rowOffset(int neighbor) {
+		return rowOffsets[neighbor];
+	}
+
+	/**
+	 * @param neighbor: position of the neighbor in the table
+	 * @return the neighbor's column offset
+	 */
+	int columnOffset(int neighbor) {
+		return columnOffsets[neighbor];
+	}
+
+	/**
+	 * @param neighbor: position of the neighbor in the table
+	 * @return the offset of the neighbor's index from the Cell's index
+	 */
+	int indexOffset(int neighbor) {
+		return indexOffsets[neighbor];
+	}
+
+	/**
+	 * @param neighbor: position of the neighbor in the table
+	 * @return the neighbor's offset within the Grid's state buffers
+	 */
+	int positionOffset(int neighbor) {
+		return positionOffsets[neighbor];
+	}
+
+}
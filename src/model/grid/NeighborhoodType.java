@@ -0,0 +1,100 @@
+package model.grid;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * enum representing the shapes of neighborhood a Grid can look up for a Cell. Each shape
+ * generates the offsets of its neighbors for any radius
+ * 
+ * @author Stephen
+ *
+ */
+public enum NeighborhoodType {
+
+	/**
+	 * Every Cell within radius rows and radius columns of the Cell, in row-major order
+	 */
+	MOORE {
+		@Override
+		protected boolean contains(int rowOffset, int columnOffset, int radius) {
+			return true;
+		}
+	},
+	/**
+	 * Every Cell within a Manhattan distance of radius from the Cell, in row-major order
+	 */
+	VON_NEUMANN {
+		@Override
+		protected boolean contains(int rowOffset, int columnOffset, int radius) {
+			return Math.abs(rowOffset) + Math.abs(columnOffset) <= radius;
+		}
+	},
+	/**
+	 * The Cells 1 to radius Cells away in the 4 cardinal directions (NORTH, SOUTH, WEST, EAST), 
+	 * ordered by distance from the Cell
+	 */
+	CARDINAL {
+		@Override
+		protected boolean contains(int rowOffset, int columnOffset, int radius) {
+			return rowOffset == 0 || columnOffset == 0;
+		}
+
+		@Override
+		int[][] offsets(int radius) {
+			int[] rowOffsets = new int[4 * radius];
+			int[] columnOffsets = new int[4 * radius];
+			for (int distance = 1; distance <= radius; distance++) {
+				for (int i = 0; i < CARDINAL_ROW_OFFSETS.length; i++) {
+					rowOffsets[4 * (distance - 1) + i] = CARDINAL_ROW_OFFSETS[i] * distance;
+					columnOffsets[4 * (distance - 1) + i] = CARDINAL_COLUMN_OFFSETS[i] * distance;
+				}
+			}
+			return new int[][] { rowOffsets, columnOffsets };
+		}
+	};
+
+	private static final int[] CARDINAL_ROW_OFFSETS = { -1, 1, 0, 0 };
+	private static final int[] CARDINAL_COLUMN_OFFSETS = { 0, 0, -1, 1 };
+
+	/**
+	 * @param rowOffset: row offset of a Cell within radius rows of the center
+	 * @param columnOffset: column offset of a Cell within radius columns of the center
+	 * @param radius: radius of the neighborhood
+	 * @return true if the Cell at the given offset belongs to the neighborhood; false otherwise
+	 */
+	protected abstract boolean contains(int rowOffset, int columnOffset, int radius);
+
+	/**
+	 * @param radius: radius of the neighborhood
+	 * @return the number of neighbors in the neighborhood, not counting its center; the size of the
+	 * offset table a Grid builds for it
+	 */
+	public int size(int radius) {
+		return offsets(radius)[0].length;
+	}
+
+	/**
+	 * Generates the row and column offsets of every neighbor for the given radius
+	 * @param radius: radius of the neighborhood
+	 * @return array holding the row offsets followed by the column offsets
+	 */
+	int[][] offsets(int radius) {
+		List<int[]> offsets = new ArrayList<>();
+		for (int rowOffset = -radius; rowOffset <= radius; rowOffset++) {
+			for (int columnOffset = -radius; columnOffset <= radius; columnOffset++) {
+				if (!(rowOffset == 0 && columnOffset == 0) && contains(rowOffset, columnOffset, radius)) {
+					offsets.add(new int[] { rowOffset, columnOffset });
+				}
+			}
+		}
+		int[] rowOffsets = new int[offsets.size()];
+		int[] columnOffsets = new int[offsets.size()];
+		for (int i = 0; i < offsets.size(); i++) {
+			rowOffsets[i] = offsets.get(i)[0];
+			columnOffsets[i] = offsets.get(i)[1];
+		}
+		return new int[][] { rowOffsets, columnOffsets };
+	}
+
+}
@@ -0,0 +1,168 @@
+package model.random;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 
+ * Seeded, splittable pseudorandom number generator using the SplitMix64 algorithm, the same one
+ * behind java.util.SplittableRandom. A generator can split off a new generator whose stream is 
+ * statistically independent of its own, so every tile or thread can draw from its own stream 
+ * without contention while the whole run stays reproducible from a single seed. Not thread-safe:
+ * each stream must be used by one thread at a time
+ * 
+ * @author Stephen
+ *
+ */
+public class SplitMix64 {
+
+	public static final int STATE_SIZE = 2 * Long.BYTES;
+	private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+	private static final double DOUBLE_UNIT = 0x1.0p-53;
+	private long seed;
+	private long gamma;
+
+	/**
+	 * Instantiates a generator whose stream is determined by the given seed
+	 * @param seed: the seed
+	 */
+	public SplitMix64(long seed) {
+		this(seed, GOLDEN_GAMMA);
+	}
+
+	/**
+	 * Instantiates a generator with the given state and increment
+	 * @param seed: the generator's state
+	 * @param gamma: the odd amount the state advances by on every draw
+	 */
+	private SplitMix64(long seed, long gamma) {
+		this.seed = seed;
+		this.gamma = gamma;
+	}
+
+	/**
+	 * @return a seed drawn from the system's source of randomness, for runs that do not specify one
+	 */
+	public static long randomSeed() {
+		return ThreadLocalRandom.current().nextLong();
+	}
+
+	/**
+	 * Scrambles the bits of a value; Used both to turn the generator's state into output and as a
+	 * stateless hash of a counter
+	 * @param value: the value to scramble
+	 * @return the scrambled value
+	 */
+	public static long mix64(long value) {
+		value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+		value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+		return value ^ (value >>> 31);
+	}
+
+	/**
+	 * Counter-based draw: the counter'th value of the stream a generator seeded with the key would 
+	 * produce, computed without any state. Draws that only depend on their key and counter come out 
+	 * the same regardless of the order or thread they are computed in
+	 * @param key: the key identifying the stream
+	 * @param counter: the position of the draw within the stream
+	 * @return a pseudorandom long
+	 */
+	public static long hash(long key, long counter) {
+		return mix64(key + (counter + 1) * GOLDEN_GAMMA);
+	}
+
+	/**
+	 * @param value: a pseudorandom long
+	 * @return a pseudorandom double between 0.0 (inclusive) and 1.0 (exclusive) made from the value's high bits
+	 */
+	public static double toDouble(long value) {
+		return (value >>> 11) * DOUBLE_UNIT;
+	}
+
+	/**
+	 * Splits off a new generator; The new generator's stream and this generator's remaining stream
+	 * are statistically independent
+	 * @return the new generator
+	 */
+	public SplitMix64 split() {
+		return new SplitMix64(nextLong(), mixGamma(nextSeed()));
+	}
+
+	/**
+	 * @return a pseudorandom long
+	 */
+	public long nextLong() {
+		return mix64(nextSeed());
+	}
+
+	/**
+	 * @param bound: the upper bound, which must be positive
+	 * @return a pseudorandom int between 0 (inclusive) and bound (exclusive), uniformly distributed
+	 */
+	public int nextInt(int bound) {
+		int mask = bound - 1;
+		int value = (int) (nextLong() >>> 33);
+		if ((bound & mask) == 0) return value & mask;
+		// rejects the few values that would make lower results more likely than higher ones
+		for (int candidate = value; candidate - (value = candidate % bound) + mask < 0;
+				candidate = (int) (nextLong() >>> 33)) {
+		}
+		return value;
+	}
+
+	/**
+	 * @return a pseudorandom double between 0.0 (inclusive) and 1.0 (exclusive)
+	 */
+	public double nextDouble() {
+		return toDouble(nextLong());
+	}
+
+	/**
+	 * @return a pseudorandom boolean
+	 */
+	public boolean nextBoolean() {
+		return nextLong() < 0;
+	}
+
+	/**
+	 * Writes the generator's state and increment, which is everything needed to continue its stream
+	 * @param buffer: buffer receiving STATE_SIZE bytes
+	 */
+	public void writeState(ByteBuffer buffer) {
+		buffer.putLong(seed);
+		buffer.putLong(gamma);
+	}
+
+	/**
+	 * Restores a state and increment written by writeState, so the generator continues the stream 
+	 * from where the written generator was
+	 * @param buffer: buffer holding STATE_SIZE bytes written by writeState
+	 */
+	public void readState(ByteBuffer buffer) {
+		seed = buffer.getLong();
+		gamma = buffer.getLong();
+	}
+
+	/**
+	 * Advances the generator's state
+	 * @return the new state
+	 */
+	private long nextSeed() {
+		return seed += gamma;
+	}
+
+	/**
+	 * Derives the increment of a split generator; The increment must be odd and have enough bit 
+	 * transitions to scramble well
+	 * @param value: the value to derive the increment from
+	 * @return the increment
+	 */
+	private static long mixGamma(long value) {
+		value = (value ^ (value >>> 33)) * 0xff51afd7ed558ccdL;
+		value = (value ^ (value >>> 33)) * 0xc4ceb9fe1a85ec53L;
+		value = (value ^ (value >>> 33)) | 1L;
+		int transitions = Long.bitCount(value ^ (value >>> 1));
+		return transitions < 24 ? value ^ 0xaaaaaaaaaaaaaaaaL : value;
+	}
+
+}
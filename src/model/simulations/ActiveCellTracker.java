@@ -0,0 +1,122 @@
+package model.simulations;
+
+import java.util.Arrays;
+
+/**
+ * 
+ * Tracks which Cells of a Simulation need their rules applied in the upcoming generation and which
+ * Cells changed state in the generation being computed. Cells are identified by their index in the
+ * Grid; each is scheduled at most once per generation, using a per-generation stamp instead of clearing
+ * a flag for every Cell
+ * 
+ * @author Stephen
+ *
+ */
+class ActiveCellTracker {
+
+	private final int[] scheduledStamps;
+	private int[] scheduledCells;
+	private int scheduledCount;
+	private int[] activeCells;
+	private int activeCount;
+	private final int[] changedCells;
+	private int changedCount;
+	private int stamp;
+
+	/**
+	 * Instantiates a tracker with no Cells scheduled
+	 * @param numberOfCells: the number of Cells in the Grid
+	 */
+	ActiveCellTracker(int numberOfCells) {
+		scheduledStamps = new int[numberOfCells];
+		scheduledCells = new int[numberOfCells];
+		activeCells = new int[numberOfCells];
+		changedCells = new int[numberOfCells];
+		stamp = 1;
+	}
+
+	/**
+	 * Schedules a Cell to have its rules applied in the upcoming generation
+	 * @param cell: index of the Cell
+	 */
+	void schedule(int cell) {
+		if (scheduledStamps[cell] != stamp) {
+			scheduledStamps[cell] = stamp;
+			scheduledCells[scheduledCount++] = cell;
+		}
+	}
+
+	/**
+	 * Schedules every Cell to have its rules applied in the upcoming generation
+	 */
+	void scheduleAll() {
+		for (int cell = 0; cell < scheduledStamps.length; cell++) {
+			schedule(cell);
+		}
+	}
+
+	/**
+	 * Makes the scheduled Cells the active Cells of the generation being computed; Cells
+	 * scheduled from now on belong to the generation after it
+	 * @return the number of active Cells
+	 */
+	int beginGeneration() {
+		int[] previousActiveCells = activeCells;
+		activeCells = scheduledCells;
+		activeCount = scheduledCount;
+		scheduledCells = previousActiveCells;
+		scheduledCount = 0;
+		if (++stamp == Integer.MAX_VALUE) {
+			Arrays.fill(scheduledStamps, 0);
+			stamp = 1;
+		}
+		return activeCount;
+	}
+
+	/**
+	 * @param position: position in the list of active Cells
+	 * @return index of the active Cell at the given position
+	 */
+	int getActiveCell(int position) {
+		return activeCells[position];
+	}
+
+	/**
+	 * Records that a Cell's state differs between the current and next generation
+	 * @param cell: index of the Cell
+	 */
+	void recordChange(int cell) {
+		changedCells[changedCount++] = cell;
+	}
+
+	/**
+	 * @return the number of Cells that changed state in the last computed generation
+	 */
+	int getChangedCount() {
+		return changedCount;
+	}
+
+	/**
+	 * @param position: position in the list of changed Cells
+	 * @return index of the changed Cell at the given position
+	 */
+	int getChangedCell(int position) {
+		return changedCells[position];
+	}
+
+	/**
+	 * @return indices of the Cells that changed state in the last computed generation, of which
+	 * the first getChangedCount are valid
+	 */
+	int[] getChangedCells() {
+		return changedCells;
+	}
+
+	/**
+	 * Forgets the Cells that changed in the last computed generation
+	 */
+	void clearChanges() {
+		changedCount = 0;
+	}
+
+}
@@ -1,87 +1,140 @@
 package model.simulations;
 
-import java.util.List;
-
-import javafx.scene.paint.Color;
-import model.cells.Cell;
 import model.cells.CellStates;
+import model.engines.OuterTotalisticRule;
 import model.grid.Grid;
+import model.grid.Neighborhood;
+import model.random.SplitMix64;
 
 /**
  * 
- * A Simulation of Conway's Game of Life
+ * A Simulation of Conway's Game of Life, or of any other outer totalistic rule: Life-like rules such as
+ * HighLife, Generations rules such as Brian's Brain, and Larger than Life rules. The rule is compiled 
+ * into a transition table, so each Cell's next state is looked up from its state and live neighbor count
  * 
  * @author Stephen
  *
  */
 public class GameOfLife extends Simulation {
 	
+	private static final String DYING_COLOR_FORMAT = "#%02X%02X%02X";
+	private static final int[] FIRST_DYING_COLOR = { 0xC0, 0x39, 0x2B };
+	private static final int[] LAST_DYING_COLOR = { 0xF5, 0xCB, 0xA7 };
+	private final OuterTotalisticRule rule;
+	private final Neighborhood neighborhood;
+	private final byte[] transitions;
+	private final int countsPerState;
+	
 	/**
-	 * Instantiates a Simulation of Game of Life
+	 * Instantiates a Simulation of Conway's Game of Life
 	 * @param grid: the Simulation's Grid of Cells
 	 */
 	public GameOfLife(Grid grid) {
-		super(grid);
+		this(grid, OuterTotalisticRule.CONWAY);
+	}
+	
+	/**
+	 * Instantiates a Simulation of an outer totalistic rule
+	 * @param grid: the Simulation's Grid of Cells
+	 * @param rule: the rule the Cells follow
+	 */
+	public GameOfLife(Grid grid, OuterTotalisticRule rule) {
+		this(grid, rule, SplitMix64.randomSeed());
 	}
 	
 	/**
-	 * Updates the Cell's state according to its current state and the number of live neighbors it has;
-	 * If the Cell is alive and has 2 or 3 live neighbors, it remains alive; Otherwise, it dies.
-	 * If the Cell is dead, it can be revived if it has exactly 3 live neighbors; Otherwise, it remains dead
+	 * Instantiates a Simulation of an outer totalistic rule whose random number generator is created with
+	 * the given seed; The rules draw nothing from it, but the seed is reported and saved with the Simulation
+	 * @param grid: the Simulation's Grid of Cells
+	 * @param rule: the rule the Cells follow
+	 * @param seed: the seed of the Simulation's random number generator
+	 */
+	public GameOfLife(Grid grid, OuterTotalisticRule rule, long seed) {
+		super(grid, seed);
+		this.rule = rule;
+		neighborhood = grid.getNeighborhood(rule.getNeighborhoodType(), rule.getRadius());
+		transitions = rule.getTransitions();
+		countsPerState = rule.getCountsPerState();
+	}
+	
+	/**
+	 * Looks up the Cell's next state from its current state and the number of live neighbors it has; 
+	 * Under Conway's rules, a live Cell with 2 or 3 live neighbors remains alive and a dead Cell with 
+	 * exactly 3 live neighbors is revived, while every other Cell dies or remains dead
 	 */
 	@Override
-	protected void applyRulesToCell(Cell cell) {
-		int liveNeighbors = countLiveNeighbors(cell);
-		int nextState;
-		if (isAlive(cell)) {
-			if (liveNeighbors == 2 || liveNeighbors == 3) nextState = CellStates.GAME_OF_LIFE_ALIVE.value();
-			else nextState = CellStates.GAME_OF_LIFE_DEAD.value();
-		}
-		else {
-			if (liveNeighbors == 3) nextState = CellStates.GAME_OF_LIFE_ALIVE.value();
-			else nextState = CellStates.GAME_OF_LIFE_DEAD.value();
-		}
-		cell.setState(nextState);
-		cell.setHasChanged(true);
+	protected void applyRulesToCell(int row, int column) {
+		int liveNeighbors = countLiveNeighbors(row, column);
+		getGrid().setNextState(row, column, transitions[getGrid().getState(row, column) * countsPerState + liveNeighbors]);
 	}
 	
 	/**
-	 * Changes Cell's color to white if the Cell is dead or black if the Cell is alive
+	 * Game of Life is synchronous: each Cell's next state depends only on the current generation
 	 */
 	@Override
-	protected void updateCellColor(Cell cell) {
-		int currentState = cell.getCurrentState();
-		if (currentState == CellStates.GAME_OF_LIFE_DEAD.value()) {
-			cell.setFill(Color.WHITE);
-		}
-		else {
-			cell.setFill(Color.BLACK);
-		}
+	protected boolean isSynchronous() {
+		return true;
 	}
 	
 	/**
-	 * Counts the number of live neighbors the given Cell has
-	 * @param cell: Cell whose live neighbors are to be counted
-	 * @return the number of live neighbors the given Cell has
+	 * Game of Life supports active set scheduling: a Cell can only change if it or one of its neighbors 
+	 * changed, and dying Cells change every generation until they are dead; Rules under which dead Cells
+	 * with no live neighbors come alive do not, since any Cell may change at any time
 	 */
-	private int countLiveNeighbors(Cell cell) {
-		List<Cell> neighbors = getGrid().getAllNeighbors(cell.getRow(), cell.getColumn());
-		int count = 0;
-		for (Cell neighbor : neighbors) {
-			if (isAlive(neighbor)) {
-				count++;
-			}	
+	@Override
+	protected boolean supportsActiveSetScheduling() {
+		return !rule.hasBirthWithoutNeighbors();
+	}
+	
+	/**
+	 * @return the neighbors whose states the rules read
+	 */
+	@Override
+	protected Neighborhood getActivationNeighborhood() {
+		return neighborhood;
+	}
+	
+	/**
+	 * Colors Cells white if they are dead or black if they are alive; Dying Cells fade from red 
+	 * towards white as they approach death
+	 */
+	@Override
+	public String[] getStatePalette() {
+		String[] palette = new String[rule.getNumberOfStates()];
+		palette[CellStates.GAME_OF_LIFE_DEAD.value()] = "WHITE";
+		palette[CellStates.GAME_OF_LIFE_ALIVE.value()] = "BLACK";
+		int firstDyingState = CellStates.GAME_OF_LIFE_ALIVE.value() + 1;
+		for (int state = firstDyingState; state < palette.length; state++) {
+			double fade = palette.length - firstDyingState == 1 ? 0 : (double) (state - firstDyingState) / (palette.length - 1 - firstDyingState);
+			palette[state] = String.format(DYING_COLOR_FORMAT, blend(0, fade), blend(1, fade), blend(2, fade));
 		}
-		return count;
+		return palette;
 	}
 	
 	/**
-	 * 
-	 * @param cell: Cell whose state is being checked
-	 * @return true if the Cell is alive; false otherwise
+	 * @return the rule the Cells follow
+	 */
+	public OuterTotalisticRule getRule() {
+		return rule;
+	}
+	
+	/**
+	 * @param channel: index of a color channel
+	 * @param fade: how far a dying Cell has faded, from 0 for the first dying state to 1 for the last
+	 * @return the channel's value for the faded color
+	 */
+	private int blend(int channel, double fade) {
+		return (int) Math.round(FIRST_DYING_COLOR[channel] + fade * (LAST_DYING_COLOR[channel] - FIRST_DYING_COLOR[channel]));
+	}
+	
+	/**
+	 * Counts the number of live neighbors the Cell at the given row and column has
+	 * @param row: row of the Cell whose live neighbors are to be counted
+	 * @param column: column of the Cell whose live neighbors are to be counted
+	 * @return the number of live neighbors the given Cell has
 	 */
-	private boolean isAlive(Cell cell) {
-		return cell.getState() == CellStates.GAME_OF_LIFE_ALIVE.value();
+	private int countLiveNeighbors(int row, int column) {
+		return getGrid().countNeighborsInState(row, column, neighborhood, CellStates.GAME_OF_LIFE_ALIVE.value());
 	}
 
 }
@@ -0,0 +1,132 @@
+package model.simulations;
+
+import model.cells.CellStates;
+import model.engines.LifeBitBoard;
+import model.engines.OuterTotalisticRule;
+import model.grid.Grid;
+import model.random.SplitMix64;
+
+/**
+ *
+ * A Simulation of Conway's Game of Life backed by a LifeBitBoard, which packs 64 Cells per long
+ * and advances them with bitwise adder logic instead of applying the rules Cell by Cell.
+ * Produces the same generations as GameOfLife on both standard and toroidal Grids.
+ *
+ * The board holds the current generation; The Grid is only brought up to date when a listener asks
+ * for the Cells that changed or the Grid is requested, by unpacking the words of the board that
+ * changed since it was last brought up to date, so headless runs never touch the Grid's states and
+ * never allocate its next state buffer
+ *
+ * @author Stephen
+ *
+ */
+public class GameOfLifeBitPacked extends GameOfLife {
+
+	private final LifeBitBoard board;
+	private final long[] unpackedWords;
+	private final byte[] wordStates = new byte[LifeBitBoard.BITS_PER_WORD];
+
+	/**
+	 * Instantiates a bit-packed Simulation of Game of Life
+	 * @param grid: the Simulation's Grid of Cells
+	 */
+	public GameOfLifeBitPacked(Grid grid) {
+		this(grid, SplitMix64.randomSeed());
+	}
+
+	/**
+	 * Instantiates a bit-packed Simulation of Game of Life whose random number generator is created with the given seed
+	 * @param grid: the Simulation's Grid of Cells
+	 * @param seed: the seed of the Simulation's random number generator
+	 */
+	public GameOfLifeBitPacked(Grid grid, long seed) {
+		super(grid, OuterTotalisticRule.CONWAY, seed);
+		board = new LifeBitBoard(grid.getNumberOfRows(), grid.getNumberOfColumns(), grid.wrapsAround());
+		for (int row = 0; row < grid.getNumberOfRows(); row++) {
+			for (int column = 0; column < grid.getNumberOfColumns(); column++) {
+				board.setAlive(row, column, grid.getState(row, column) == CellStates.GAME_OF_LIFE_ALIVE.value());
+			}
+		}
+		unpackedWords = new long[grid.getNumberOfRows() * board.getWordsPerRow()];
+		for (int row = 0; row < grid.getNumberOfRows(); row++) {
+			for (int word = 0; word < board.getWordsPerRow(); word++) {
+				unpackedWords[row * board.getWordsPerRow() + word] = board.getWord(row, word);
+			}
+		}
+	}
+
+	/**
+	 * Advances the board by one generation
+	 */
+	@Override
+	protected void computeNextGeneration() {
+		board.step();
+	}
+
+	/**
+	 * The board already holds the new generation, so the Grid is only brought up to date if a listener
+	 * asks for the Cells that changed
+	 */
+	@Override
+	protected int commitNextGeneration(int[] changedCells) {
+		return changedCells == null ? 0 : unpackChangedWords(changedCells);
+	}
+
+	/**
+	 * @return the Grid, brought up to date with the board
+	 */
+	@Override
+	public Grid getGrid() {
+		unpackChangedWords(null);
+		return super.getGrid();
+	}
+
+	/**
+	 * Copies every word of the board that changed since it was last unpacked into the Grid's current
+	 * states, 64 Cells at a time
+	 * @param changedCells: array of row * column Cell indices receiving the Cells that changed, in index
+	 * order, or null if they are not needed
+	 * @return the number of Cells listed
+	 */
+	private int unpackChangedWords(int[] changedCells) {
+		Grid grid = super.getGrid();
+		int wordsPerRow = board.getWordsPerRow();
+		int alive = CellStates.GAME_OF_LIFE_ALIVE.value();
+		int dead = CellStates.GAME_OF_LIFE_DEAD.value();
+		int numberOfChangedCells = 0;
+		for (int row = 0; row < grid.getNumberOfRows(); row++) {
+			for (int word = 0; word < wordsPerRow; word++) {
+				long cells = board.getWord(row, word);
+				long changed = cells ^ unpackedWords[row * wordsPerRow + word];
+				if (changed == 0) continue;
+				unpackedWords[row * wordsPerRow + word] = cells;
+				int firstColumn = word * LifeBitBoard.BITS_PER_WORD;
+				int length = Math.min(LifeBitBoard.BITS_PER_WORD, grid.getNumberOfColumns() - firstColumn);
+				for (int bit = 0; bit < length; bit++) {
+					wordStates[bit] = (byte) ((cells >>> bit & 1L) != 0 ? alive : dead);
+				}
+				grid.setStates(row, firstColumn, wordStates, length);
+				for (; changedCells != null && changed != 0; changed &= changed - 1) {
+					changedCells[numberOfChangedCells++] = grid.getIndex(row, firstColumn + Long.numberOfTrailingZeros(changed));
+				}
+			}
+		}
+		return numberOfChangedCells;
+	}
+
+	/**
+	 * The whole generation is computed by the engine at once, so Cells are never scheduled individually
+	 */
+	@Override
+	protected boolean supportsActiveSetScheduling() {
+		return false;
+	}
+
+	/**
+	 * @return the board holding the packed Cells
+	 */
+	public LifeBitBoard getBoard() {
+		return board;
+	}
+
+}
@@ -0,0 +1,147 @@
+package model.simulations;
+
+import java.nio.ByteBuffer;
+
+import model.cells.CellStates;
+import model.engines.HashlifeUniverse;
+import model.engines.OuterTotalisticRule;
+import model.grid.Grid;
+import model.random.SplitMix64;
+
+/**
+ *
+ * A Simulation of Conway's Game of Life on an infinite grid, advanced with the Hashlife algorithm.
+ * The Simulation's Grid is a window onto the universe with its top left Cell at the universe's
+ * origin; patterns that leave the window keep evolving and may come back into view. Since the
+ * universe has no edges, the Grid's edge type is ignored
+ *
+ * @author Stephen
+ *
+ */
+public class GameOfLifeHashlife extends GameOfLife {
+
+	private final HashlifeUniverse universe;
+	private int stepExponent;
+
+	/**
+	 * Instantiates a Hashlife Simulation of Game of Life seeded with the Grid's live Cells
+	 * @param grid: the Simulation's Grid of Cells, used as a window onto the universe
+	 */
+	public GameOfLifeHashlife(Grid grid) {
+		this(grid, SplitMix64.randomSeed());
+	}
+
+	/**
+	 * Instantiates a Hashlife Simulation of Game of Life whose random number generator is created with the given seed
+	 * @param grid: the Simulation's Grid of Cells, used as a window onto the universe
+	 * @param seed: the seed of the Simulation's random number generator
+	 */
+	public GameOfLifeHashlife(Grid grid, long seed) {
+		super(grid, OuterTotalisticRule.CONWAY, seed);
+		universe = new HashlifeUniverse();
+		for (int row = 0; row < grid.getNumberOfRows(); row++) {
+			for (int column = 0; column < grid.getNumberOfColumns(); column++) {
+				if (grid.getState(row, column) == CellStates.GAME_OF_LIFE_ALIVE.value()) {
+					universe.setAlive(row, column, true);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Jumps the Simulation 2^exponent generations ahead in a single update
+	 * @param exponent: base 2 logarithm of the number of generations to advance
+	 */
+	public void fastForward(int exponent) {
+		stepExponent = exponent;
+		try {
+			updateGrid();
+		} finally {
+			stepExponent = 0;
+		}
+	}
+
+	/**
+	 * Advances the universe and copies the window covered by the Grid into the Grid's next state buffer
+	 */
+	@Override
+	protected void computeNextGeneration() {
+		universe.advance(stepExponent);
+		Grid grid = getGrid();
+		grid.allocateNextStates();
+		for (int row = 0; row < grid.getNumberOfRows(); row++) {
+			for (int column = 0; column < grid.getNumberOfColumns(); column++) {
+				grid.setNextState(row, column, CellStates.GAME_OF_LIFE_DEAD.value());
+			}
+		}
+		universe.forEachLiveCell(0, 0, grid.getNumberOfRows(), grid.getNumberOfColumns(),
+				(row, column) -> grid.setNextState(row, column, CellStates.GAME_OF_LIFE_ALIVE.value()));
+	}
+
+	/**
+	 * The whole generation is computed by the engine at once, so Cells are never scheduled individually
+	 */
+	@Override
+	protected boolean supportsActiveSetScheduling() {
+		return false;
+	}
+
+	/**
+	 * @return the number of generations the universe has advanced, counting every generation 
+	 * skipped by fast forwarding
+	 */
+	@Override
+	public long getGeneration() {
+		return universe.getGeneration();
+	}
+
+	/**
+	 * Restores the number of generations the universe has advanced
+	 */
+	@Override
+	protected void setGeneration(long generation) {
+		super.setGeneration(generation);
+		universe.setGeneration(generation);
+	}
+	
+	/**
+	 * Adds every live cell of the universe, since cells outside the Grid are not held in it
+	 */
+	@Override
+	public int getStateSize() {
+		return Math.toIntExact(super.getStateSize() + Long.BYTES + 2L * Long.BYTES * universe.getPopulation());
+	}
+	
+	/**
+	 * Writes the position of every live cell in the universe after the Simulation's own state
+	 */
+	@Override
+	public void writeState(ByteBuffer buffer) {
+		super.writeState(buffer);
+		long[] liveCells = universe.getLiveCells();
+		buffer.putLong(liveCells.length / 2);
+		buffer.asLongBuffer().put(liveCells);
+		buffer.position(buffer.position() + Long.BYTES * liveCells.length);
+	}
+	
+	/**
+	 * Replaces the universe's cells with the live cells of the written universe, including those outside the Grid
+	 */
+	@Override
+	public void readState(ByteBuffer buffer) {
+		super.readState(buffer);
+		universe.clear();
+		long population = buffer.getLong();
+		for (long cell = 0; cell < population; cell++) {
+			universe.setAlive(buffer.getLong(), buffer.getLong(), true);
+		}
+	}
+	
+	/**
+	 * @return the universe the Grid is a window onto
+	 */
+	public HashlifeUniverse getUniverse() {
+		return universe;
+	}
+
+}
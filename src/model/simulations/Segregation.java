@@ -1,26 +1,32 @@
 package model.simulations;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Random;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 
-import javafx.scene.paint.Color;
-import model.cells.Cell;
 import model.cells.CellStates;
 import model.grid.Grid;
+import model.grid.Neighborhood;
+import model.grid.NeighborhoodType;
 
 /**
- * Simulation for Segregation cellular automata
+ * Simulation for Segregation cellular automata. Empty Cells are kept in an array pool that 
+ * a vacancy is taken from in constant time by swapping the last empty Cell into its place, and 
+ * processed Cells are marked with a stamp that advances after every update, so each generation
+ * costs time proportional to the number of Cells
  * 
  * @author Stephen
  *
  */
 public class Segregation extends Simulation {
 
-	private List<Cell> currentEmptyCells;
-	private List<Cell> newEmptyCells;
-	private List<Cell> processedCells;
-	private Random randomNumberGenerator;
+	private int[] currentEmptyCells;
+	private int numberOfCurrentEmptyCells;
+	private int[] newEmptyCells;
+	private int numberOfNewEmptyCells;
+	private int[] processedStamps;
+	private int processedStamp;
+	private final Neighborhood neighborhood;
+	private final int[] neighbors;
 	private double threshold;
 	
 	/**
@@ -28,73 +34,111 @@ public class Segregation extends Simulation {
 	 * @param grid: Simulation's Grid of Cells
 	 * @param threshold: threshold above which Cell's ratio of similar neighbors must be in order for Cell 
 	 * to be satisfied with current location
+	 * @param seed: the seed of the Simulation's random number generator
 	 */
-	public Segregation(Grid grid, double threshold) {
-		super(grid);
+	public Segregation(Grid grid, double threshold, long seed) {
+		super(grid, seed);
 		this.threshold = threshold;
-		randomNumberGenerator = new Random();
-		currentEmptyCells = new ArrayList<>();
-		newEmptyCells = new ArrayList<>();
-		processedCells = new ArrayList<>();
+		neighborhood = grid.getNeighborhood(NeighborhoodType.MOORE);
+		neighbors = new int[neighborhood.size()];
+		int numberOfCells = grid.getNumberOfRows() * grid.getNumberOfColumns();
+		currentEmptyCells = new int[numberOfCells];
+		newEmptyCells = new int[numberOfCells];
+		processedStamps = new int[numberOfCells];
+		processedStamp = 1;
 		initializeEmptyCellList();
 	}
 
 	/**
 	 * Updates the Grid according to the rules of the Simulation;
-	 * Adds all newly vacated calls to list of current empty cells.
-	 * Clears list of processed cells and newly vacated cells
+	 * Adds all newly vacated calls to pool of current empty cells.
+	 * Clears pool of newly vacated cells and advances the stamp of processed cells
 	 */
 	@Override
 	public void updateGrid() {
 		super.updateGrid();
-		currentEmptyCells.addAll(newEmptyCells);
-		processedCells.clear();
-		newEmptyCells.clear();
+		System.arraycopy(newEmptyCells, 0, currentEmptyCells, numberOfCurrentEmptyCells, numberOfNewEmptyCells);
+		numberOfCurrentEmptyCells += numberOfNewEmptyCells;
+		numberOfNewEmptyCells = 0;
+		advanceProcessedStamp();
 	}
 	
 	/**
 	 * Applies rules of Segregation to Cell depending on whether the Cell
-	 * is empty of not empty
+	 * is empty of not empty; Leaves Cell alone if the Cell has already been 
+	 * processed in the current frame
 	 */
 	@Override
-	protected void applyRulesToCell(Cell cell) {
+	protected void applyRulesToCell(int row, int column) {
+		int cell = getGrid().getIndex(row, column);
+		if (cellAlreadyProcessed(cell)) return;
 		if (cellIsEmpty(cell)) handleEmptyCell(cell);
-		else handleNonEmptyCell(cell);
+		else handleNonEmptyCell(row, column, cell);
 	}
 
+	/**
+	 * Adds the pool of empty Cells, whose order decides which vacancy each random draw picks
+	 */
+	@Override
+	public int getStateSize() {
+		return super.getStateSize() + Integer.BYTES * (1 + numberOfCurrentEmptyCells);
+	}
+	
+	/**
+	 * Writes the pool of empty Cells in its current order after the Simulation's own state
+	 */
+	@Override
+	public void writeState(ByteBuffer buffer) {
+		super.writeState(buffer);
+		buffer.putInt(numberOfCurrentEmptyCells);
+		buffer.asIntBuffer().put(currentEmptyCells, 0, numberOfCurrentEmptyCells);
+		buffer.position(buffer.position() + Integer.BYTES * numberOfCurrentEmptyCells);
+	}
+	
+	/**
+	 * Restores the pool of empty Cells, replacing the pool found by scanning the Grid 
+	 */
+	@Override
+	public void readState(ByteBuffer buffer) {
+		super.readState(buffer);
+		numberOfCurrentEmptyCells = buffer.getInt();
+		buffer.asIntBuffer().get(currentEmptyCells, 0, numberOfCurrentEmptyCells);
+		buffer.position(buffer.position() + Integer.BYTES * numberOfCurrentEmptyCells);
+	}
+	
 	/**
 	 * Changes the Cell's color according to its current state:
 	 * Color is changed to red if the Cell is in state X, blue if the Cell is in state O, 
 	 * and white if the Cell is empty
 	 */
 	@Override
-	protected void updateCellColor(Cell cell) {
-		int currentState = cell.getCurrentState();
-		if (currentState == CellStates.SEGREGATION_X.value()) cell.setFill(Color.RED);
-		if (currentState == CellStates.SEGREGATION_O.value()) cell.setFill(Color.BLUE);
-		if (currentState == CellStates.SEGREGATION_EMPTY.value()) cell.setFill(Color.WHITE);
+	public String[] getStatePalette() {
+		String[] palette = new String[3];
+		palette[CellStates.SEGREGATION_X.value()] = "RED";
+		palette[CellStates.SEGREGATION_O.value()] = "BLUE";
+		palette[CellStates.SEGREGATION_EMPTY.value()] = "WHITE";
+		return palette;
 	}
 	
 	/**
-	 * Leaves Cell alone if the cell has already been processed in the current frame;
-	 * Otherwise, updates the Cell's state
-	 * @param cell: empty Cell to be processed 
+	 * Carries the empty Cell over to the next generation
+	 * @param cell: index of the empty Cell to be processed 
 	 */
-	private void handleEmptyCell(Cell cell) {
-		if (cellAlreadyProcessed(cell)) return;
-		else cell.setState(cell.getState());
+	private void handleEmptyCell(int cell) {
+		getGrid().setNextState(cell, getGrid().getState(cell));
 	}
 	
 	/**
-	 * Leaves Cell alone if the Cell has already been processed in the current frame
-	 * or if there are no vacant locations for the Cell to move to; Moves cell to 
-	 * vacancy if the Cell is not satisfied with its current location. 
-	 * @param cell: non empty Cell to be processed
+	 * Moves cell to vacancy if the Cell is not satisfied with its current location
+	 * and there is a vacant location for the Cell to move to; Otherwise, carries the Cell
+	 * over to the next generation
+	 * @param row: row of the Cell to be processed
+	 * @param column: column of the Cell to be processed
+	 * @param cell: index of the non empty Cell to be processed
 	 */
-	private void handleNonEmptyCell(Cell cell) {
-		if (currentEmptyCells.isEmpty() || cellAlreadyProcessed(cell)) return;
-		if (!cellIsSatisfied(cell)) moveCellToVacancy(cell);
-		else cell.setState(cell.getState());
+	private void handleNonEmptyCell(int row, int column, int cell) {
+		if (numberOfCurrentEmptyCells > 0 && !cellIsSatisfied(row, column, cell)) moveCellToVacancy(cell);
+		else getGrid().setNextState(cell, getGrid().getState(cell));
 	}
 	
 	/**
@@ -103,14 +147,17 @@ public class Segregation extends Simulation {
 	 * The Cell is considered satisfied if the percent of its neighbors
 	 * that are similar to it is higher than the given threshold.
 	 * 
-	 * @param cell: Cell whose satisfaction is to be checked
+	 * @param row: row of the Cell whose satisfaction is to be checked
+	 * @param column: column of the Cell whose satisfaction is to be checked
+	 * @param cell: index of the Cell whose satisfaction is to be checked
 	 * @return true if the Cell is satisfied; false otherwise
 	 */
-	private boolean cellIsSatisfied(Cell cell) {
+	private boolean cellIsSatisfied(int row, int column, int cell) {
 		double totalNonEmptyNeighbors = 0;
 		double similarNeighbors = 0;
-		List<Cell> neighbors = getGrid().getAllNeighbors(cell.getRow(), cell.getColumn());
-		for (Cell neighbor : neighbors) {
+		int numberOfNeighbors = getGrid().getNeighborIndices(row, column, neighborhood, neighbors);
+		for (int i = 0; i < numberOfNeighbors; i++) {
+			int neighbor = neighbors[i];
 			if (!cellIsEmpty(neighbor)) {
 				totalNonEmptyNeighbors++;
 				if (cellsShareSameState(cell, neighbor)) {
@@ -122,39 +169,52 @@ public class Segregation extends Simulation {
 	}
 	
 	/**
-	 * Swaps the position of a given Cell with an empty Cell
-	 * @param cell: Cell to be moved to a vacant location
+	 * Swaps the position of a given Cell with an empty Cell in the next generation
+	 * @param cell: index of the Cell to be moved to a vacant location
+	 */
+	private void moveCellToVacancy(int cell) {
+		int emptyCell = takeEmptyCell();
+		getGrid().setNextState(emptyCell, getGrid().getState(cell));
+		markProcessed(emptyCell);
+		getGrid().setNextState(cell, CellStates.SEGREGATION_EMPTY.value());
+		newEmptyCells[numberOfNewEmptyCells++] = cell;
+		markProcessed(cell);
+	}
+	
+	/**
+	 * Removes a random empty Cell from the pool of current empty cells by moving the
+	 * last empty Cell in the pool into its place
+	 * @return index of a random empty Cell
 	 */
-	private void moveCellToVacancy(Cell cell) {
-		Cell emptyCell = getEmptyCell();
-		emptyCell.setState(cell.getState());
-		updateCellColor(emptyCell);
-		processedCells.add(emptyCell);
-		currentEmptyCells.remove(emptyCell);
-		cell.setState(CellStates.SEGREGATION_EMPTY.value());
-		newEmptyCells.add(cell);
-		processedCells.add(cell);
+	private int takeEmptyCell() {
+		int indexEmptyCell = getRandom().nextInt(numberOfCurrentEmptyCells);
+		int emptyCell = currentEmptyCells[indexEmptyCell];
+		currentEmptyCells[indexEmptyCell] = currentEmptyCells[--numberOfCurrentEmptyCells];
+		return emptyCell;
 	}
 	
 	/**
-	 * @return a random empty Cell
+	 * Advances the stamp processed Cells are marked with, which makes every Cell unprocessed again;
+	 * Clears the stamps in the rare case the counter runs out
 	 */
-	private Cell getEmptyCell() {
-		int numberOfEmptyCells = currentEmptyCells.size();
-		int indexEmptyCell = randomNumberGenerator.nextInt(numberOfEmptyCells);
-		return currentEmptyCells.get(indexEmptyCell);
+	private void advanceProcessedStamp() {
+		if (processedStamp == Integer.MAX_VALUE) {
+			Arrays.fill(processedStamps, 0);
+			processedStamp = 0;
+		}
+		processedStamp++;
 	}
 	
 	/**
-	 * Initializes the list of empty cells
+	 * Initializes the pool of empty cells
 	 */
 	private void initializeEmptyCellList() {
 		Grid grid = getGrid();
 		for (int row = 0; row < grid.getNumberOfRows(); row++) {
 			for (int column = 0; column < grid.getNumberOfColumns(); column++) {
-				Cell cell = grid.getCell(row, column);
+				int cell = grid.getIndex(row, column);
 				if (cellIsEmpty(cell)) {
-					currentEmptyCells.add(cell);
+					currentEmptyCells[numberOfCurrentEmptyCells++] = cell;
 				}
 			}
 		}
@@ -162,27 +222,33 @@ public class Segregation extends Simulation {
 	
 	/**
 	 * 
-	 * @param cell: Cell whose state is being checked
+	 * @param cell: index of the Cell whose state is being checked
 	 * @return true if the Cell is empty; false otherwise
 	 */
-	private boolean cellIsEmpty(Cell cell) {
-		return cell.getState() == CellStates.SEGREGATION_EMPTY.value();
+	private boolean cellIsEmpty(int cell) {
+		return getGrid().getState(cell) == CellStates.SEGREGATION_EMPTY.value();
 	}
 	
 	/**
 	 * Indicates whether two cells share the same state
-	 * @param cell1: a Cell
-	 * @param cell2: Cell first Cell is being compared to
+	 * @param cell1: index of a Cell
+	 * @param cell2: index of the Cell first Cell is being compared to
 	 * @return true if the two Cells have the same state; false otherwise
 	 */
-	private boolean cellsShareSameState(Cell cell1, Cell cell2) {
-		return cell1.getState() == cell2.getState();
+	private boolean cellsShareSameState(int cell1, int cell2) {
+		return getGrid().getState(cell1) == getGrid().getState(cell2);
 	}
 
 	/**
 	 * 
 	 * @return true if given Cell has already been processed in the current frame; false otherwise
 	 */
-	private boolean cellAlreadyProcessed(Cell cell) {return processedCells.contains(cell);}
+	private boolean cellAlreadyProcessed(int cell) {return processedStamps[cell] == processedStamp;}
+
+	/**
+	 * Marks given Cell as processed in the current frame
+	 * @param cell: index of the processed Cell
+	 */
+	private void markProcessed(int cell) {processedStamps[cell] = processedStamp;}
 
 }
@@ -1,7 +1,18 @@
 package model.simulations;
 
-import model.cells.Cell;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+
 import model.grid.Grid;
+import model.grid.Neighborhood;
+import model.random.SplitMix64;
 
 /**
  * Base class for all Simulations. Provides framework for updating a Grid based on the rules of a Simulation
@@ -11,65 +22,374 @@ import model.grid.Grid;
  */
 public abstract class Simulation {
 	
+	private static final int BANDS_PER_THREAD = 4;
+	private final String ERROR_MESSAGE_INTERRUPTED = "Generation was interrupted before every band was processed";
+	private final String ERROR_MESSAGE_BAND_FAILED = "Rules could not be applied to a band of the grid";
 	private final Grid grid;
+	private final long seed;
+	private final SplitMix64 random;
+	private ExecutorService executor;
+	private ForkJoinPool ownedPool;
+	private List<Callable<Void>> bands;
+	private ActiveCellTracker activeCells;
+	private int[] activationNeighbors;
+	private SimulationListener listener;
+	private int[] changedCells;
+	private long generation;
 	
 	/**
-	 * Instantiates a Simulation
+	 * Instantiates a Simulation with a random seed
 	 * @param grid: Simulation's Grid of Cells
 	 */
 	public Simulation(Grid grid) {
+		this(grid, SplitMix64.randomSeed());
+	}
+	
+	/**
+	 * Instantiates a Simulation whose stochastic rules draw from streams derived from the given seed,
+	 * so that runs with the same seed and initial states produce the same generations
+	 * @param grid: Simulation's Grid of Cells
+	 * @param seed: the seed of the Simulation's random number generator
+	 */
+	public Simulation(Grid grid, long seed) {
 		this.grid = grid;
-		initializeCellColors();
+		this.seed = seed;
+		random = new SplitMix64(seed);
 	}
 	
 	/**
-	 * Updates the cell's state according to the rules of the simulation 
+	 * Computes the cell's state in the next generation according to the rules of the simulation
+	 * and stores it in the grid's next state buffer. Rules read neighbor states from the 
+	 * current generation only
 	 * 
-	 * @param cell: cell to apply rules to
+	 * @param row: row of the cell to apply rules to
+	 * @param column: column of the cell to apply rules to
 	 */
-	protected abstract void applyRulesToCell(Cell cell);
+	protected abstract void applyRulesToCell(int row, int column);
 	
 	/**
-	 * Updates the cell's color according to its current state
-	 * @param cell: cell whose color is to be updated
+	 * Provides the color of each state of the simulation as a web color name, which a view 
+	 * uses to color each cell according to its current state
+	 * @return the color of each state, indexed by state
 	 */
-	protected abstract void updateCellColor(Cell cell);
+	public abstract String[] getStatePalette();
 	
 	/**
-	 * Sets the cell's initial color according to its initial state
+	 * Sets the listener notified of the cells that change in each generation
+	 * @param listener: the listener, or null to run without a view
 	 */
-	private void initializeCellColors() {
-		for (int row = 0; row < grid.getNumberOfRows(); row++) {
-			for (int column = 0; column < grid.getNumberOfColumns(); column++) {
-				updateCellColor(grid.getCell(row, column));
-			}
+	public void setListener(SimulationListener listener) {
+		this.listener = listener;
+		changedCells = listener == null ? null : new int[grid.getNumberOfRows() * grid.getNumberOfColumns()];
+	}
+	
+	/**
+	 * Indicates whether the simulation's rules are synchronous: the next state of each cell
+	 * depends only on the current generation and rules write nothing but the cell's own next 
+	 * state. Only synchronous simulations are run in parallel
+	 * @return true if the rules may be applied to different cells concurrently; false otherwise
+	 */
+	protected boolean isSynchronous() {
+		return false;
+	}
+	
+	/**
+	 * Runs future generations on the given executor by splitting the grid into bands of rows
+	 * that are processed concurrently; Every band finishes before the next generation starts.
+	 * The number of bands follows the parallelism of a ForkJoinPool or the core pool size of a
+	 * ThreadPoolExecutor. Has no effect on simulations whose rules are not synchronous
+	 * @param executor: executor that processes the bands, or null to process the grid on the calling thread;
+	 * The caller remains responsible for shutting it down
+	 */
+	public void setExecutor(ExecutorService executor) {
+		setExecutor(executor, getParallelism(executor));
+	}
+	
+	/**
+	 * Runs future generations on the given executor, split into bands for the given number of threads
+	 * @param executor: executor that processes the bands, or null to process the grid on the calling thread;
+	 * The caller remains responsible for shutting it down
+	 * @param threads: the number of threads the executor processes bands on
+	 */
+	public void setExecutor(ExecutorService executor, int threads) {
+		if (ownedPool != null && ownedPool != executor) {
+			ownedPool.shutdown();
+			ownedPool = null;
+		}
+		this.executor = executor;
+		bands = executor == null ? null : splitIntoBands(Math.max(1, threads) * BANDS_PER_THREAD);
+	}
+	
+	/**
+	 * Runs future generations on a ForkJoinPool with the given number of threads, which the Simulation 
+	 * owns: the pool is shut down when it is replaced by another executor or parallelism drops to 1
+	 * @param threads: number of threads; 1 or less processes the grid on the calling thread
+	 */
+	public void setParallelism(int threads) {
+		if (threads <= 1) {
+			setExecutor(null);
+			return;
+		}
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		setExecutor(pool, threads);
+		ownedPool = pool;
+	}
+	
+	/**
+	 * @param executor: an executor, or null
+	 * @return the number of threads the executor runs tasks on, if it can be told; 1 otherwise
+	 */
+	private static int getParallelism(ExecutorService executor) {
+		if (executor instanceof ForkJoinPool) return ((ForkJoinPool) executor).getParallelism();
+		if (executor instanceof ThreadPoolExecutor) return ((ThreadPoolExecutor) executor).getCorePoolSize();
+		return 1;
+	}
+	
+	/**
+	 * Indicates whether the simulation supports active set scheduling: a cell's next state
+	 * can only differ from its current state if the cell was explicitly marked active or if the
+	 * cell or one of its neighbors in the activation neighborhood changed in the last generation
+	 * @return true if active set scheduling may be enabled; false otherwise
+	 */
+	protected boolean supportsActiveSetScheduling() {
+		return false;
+	}
+	
+	/**
+	 * @return the neighbors whose change in state can change a cell's next state, or null if
+	 * cells only need to be re-evaluated when they change themselves or are marked active
+	 */
+	protected Neighborhood getActivationNeighborhood() {
+		return null;
+	}
+	
+	/**
+	 * Enables or disables active set scheduling. While enabled, each generation applies the rules
+	 * only to cells that changed in the last generation, their activation neighbors, and cells marked
+	 * active; every other cell carries its state over, so the cost of a generation scales with 
+	 * the amount of activity instead of the size of the grid. Active generations run on the calling 
+	 * thread. Has no effect on simulations that do not support active set scheduling
+	 * @param enabled: true to enable active set scheduling; false to evaluate every cell each generation
+	 */
+	public void setActiveSetScheduling(boolean enabled) {
+		if (!enabled || !supportsActiveSetScheduling()) {
+			activeCells = null;
+			return;
 		}
+		activeCells = new ActiveCellTracker(grid.getNumberOfRows() * grid.getNumberOfColumns());
+		activeCells.scheduleAll();
+		grid.carryOverStates();
+		Neighborhood neighborhood = getActivationNeighborhood();
+		activationNeighbors = neighborhood == null ? null : new int[neighborhood.size()];
+	}
+	
+	/**
+	 * @return true if active set scheduling is enabled; false otherwise
+	 */
+	protected boolean usesActiveSetScheduling() {
+		return activeCells != null;
+	}
+	
+	/**
+	 * Schedules the cell at the given row and column to have its rules applied in the upcoming 
+	 * generation; Has no effect unless active set scheduling is enabled
+	 * @param row: row of the cell
+	 * @param column: column of the cell
+	 */
+	protected void markCellActive(int row, int column) {
+		if (activeCells != null) activeCells.schedule(grid.getIndex(row, column));
 	}
 	
 	/**
-	 * Updates the state and color of every cell in the grid. Resets each cell's 
-	 * hasChanged value back to false once all cells have been processed
+	 * Computes the next generation of every cell in the grid, then makes it the 
+	 * current generation and notifies the listener of the cells that changed
 	 */
 	public void updateGrid() {
-		for (int row = 0; row < grid.getNumberOfRows(); row++) {
-			for (int column = 0; column < grid.getNumberOfColumns(); column++) {
-				Cell cell = grid.getCell(row, column);
-				applyRulesToCell(cell);
-				updateCellColor(cell);
+		computeNextGeneration();
+		int numberOfChangedCells = commitNextGeneration(activeCells == null ? changedCells : null);
+		generation++;
+		if (activeCells != null) finishActiveGeneration();
+		else if (listener != null) listener.cellsUpdated(grid, changedCells, numberOfChangedCells);
+	}
+	
+	/**
+	 * Makes the generation computeNextGeneration computed the Grid's current generation and lists the 
+	 * Cells that changed; Subclasses whose engine holds the generation themselves may leave the Grid behind
+	 * while no Cells are asked for, as long as getGrid brings it up to date
+	 * @param changedCells: array of row * column Cell indices receiving the changed Cells, in index order,
+	 * or null if no listener needs them
+	 * @return the number of Cells listed
+	 */
+	protected int commitNextGeneration(int[] changedCells) {
+		grid.swapStates();
+		return changedCells == null ? 0 : grid.collectChangedCells(changedCells);
+	}
+	
+	/**
+	 * Fills the grid's next state buffer with the next generation by applying the rules 
+	 * to every cell; Subclasses with a specialized engine may compute the whole generation at once
+	 */
+	protected void computeNextGeneration() {
+		grid.allocateNextStates();
+		if (activeCells != null) applyRulesToActiveCells();
+		else if (executor != null && isSynchronous()) applyRulesInParallel();
+		else applyRulesToRows(0, grid.getNumberOfRows());
+	}
+	
+	/**
+	 * Applies the rules to the cells scheduled for this generation and records which of them change
+	 */
+	private void applyRulesToActiveCells() {
+		int columns = grid.getNumberOfColumns();
+		int numberOfActiveCells = activeCells.beginGeneration();
+		for (int i = 0; i < numberOfActiveCells; i++) {
+			int cell = activeCells.getActiveCell(i);
+			applyRulesToCell(cell / columns, cell % columns);
+			if (grid.getNextState(cell) != grid.getState(cell)) activeCells.recordChange(cell);
+		}
+	}
+	
+	/**
+	 * Carries the states of the cells that changed into the next state buffer, so that it matches 
+	 * the current generation again, schedules the changed cells and their activation neighbors for
+	 * the upcoming generation, and notifies the listener of the changed cells
+	 */
+	private void finishActiveGeneration() {
+		int columns = grid.getNumberOfColumns();
+		Neighborhood neighborhood = getActivationNeighborhood();
+		for (int i = 0; i < activeCells.getChangedCount(); i++) {
+			int cell = activeCells.getChangedCell(i);
+			int row = cell / columns;
+			int column = cell % columns;
+			grid.carryOverState(cell);
+			activeCells.schedule(cell);
+			if (neighborhood != null) {
+				int numberOfNeighbors = grid.getNeighborIndices(row, column, neighborhood, activationNeighbors);
+				for (int j = 0; j < numberOfNeighbors; j++) {
+					activeCells.schedule(activationNeighbors[j]);
+				}
+			}
+		}
+		if (listener != null) listener.cellsUpdated(grid, activeCells.getChangedCells(), activeCells.getChangedCount());
+		activeCells.clearChanges();
+	}
+	
+	/**
+	 * Applies the rules to every cell in the given range of rows
+	 * @param startRow: first row of the range
+	 * @param endRow: row after the last row of the range
+	 */
+	private void applyRulesToRows(int startRow, int endRow) {
+		for (int row = startRow; row < endRow; row++) {
+			applyRulesToRow(row);
+		}
+	}
+
+	/**
+	 * Applies the rules to every cell in a row; Subclasses whose rules can be applied to a whole row
+	 * at once may override this, as long as the result is the same as applying them cell by cell.
+	 * Rows of synchronous simulations may be processed concurrently
+	 * @param row: the row
+	 */
+	protected void applyRulesToRow(int row) {
+		for (int column = 0; column < grid.getNumberOfColumns(); column++) {
+			applyRulesToCell(row, column);
+		}
+	}
+	
+	/**
+	 * Applies the rules to every band of rows on the executor and waits for all of them to finish
+	 */
+	private void applyRulesInParallel() {
+		try {
+			for (Future<Void> band : executor.invokeAll(bands)) {
+				band.get();
 			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(ERROR_MESSAGE_INTERRUPTED, e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException(ERROR_MESSAGE_BAND_FAILED, e.getCause());
 		}
-		resetCellChangeStates();
 	}
 	
 	/**
-	 * Resets the hasChanged value of each cell in the grid to false
+	 * Splits the grid's rows into contiguous bands of nearly equal size
+	 * @param numberOfBands: the desired number of bands
+	 * @return a task per band that applies the rules to the band's rows
+	 */
+	private List<Callable<Void>> splitIntoBands(int numberOfBands) {
+		int rows = grid.getNumberOfRows();
+		numberOfBands = Math.max(1, Math.min(numberOfBands, rows));
+		List<Callable<Void>> bands = new ArrayList<>();
+		for (int band = 0; band < numberOfBands; band++) {
+			int startRow = band * rows / numberOfBands;
+			int endRow = (band + 1) * rows / numberOfBands;
+			bands.add(() -> {
+				applyRulesToRows(startRow, endRow);
+				return null;
+			});
+		}
+		return bands;
+	}
+	
+	/**
+	 * @return the Simulation's random number generator; Subclasses split independent streams off it
+	 * for rules that may run on several threads
+	 */
+	protected SplitMix64 getRandom() {
+		return random;
+	}
+	
+	/**
+	 * @return the number of generations computed so far; While a generation is being computed, 
+	 * the number of the generation the rules read from
+	 */
+	public long getGeneration() {
+		return generation;
+	}
+	
+	/**
+	 * Restores the number of generations computed so far
+	 * @param generation: the number of generations
+	 */
+	protected void setGeneration(long generation) {
+		this.generation = generation;
+	}
+	
+	/**
+	 * @return the number of bytes writeState writes
+	 */
+	public int getStateSize() {
+		return Long.BYTES + SplitMix64.STATE_SIZE;
+	}
+	
+	/**
+	 * Writes the state that is not held in the grid but is needed to resume the Simulation:
+	 * the number of generations computed and the state of the random number generator. Subclasses
+	 * append their own state, such as split random streams or agents, and add its size to getStateSize
+	 * @param buffer: buffer receiving getStateSize bytes
+	 */
+	public void writeState(ByteBuffer buffer) {
+		buffer.putLong(getGeneration());
+		random.writeState(buffer);
+	}
+	
+	/**
+	 * Restores state written by writeState from a Simulation of the same type, created from a grid 
+	 * holding the same states, so that this Simulation continues exactly where the written one was
+	 * @param buffer: buffer holding the bytes written by writeState
+	 */
+	public void readState(ByteBuffer buffer) {
+		setGeneration(buffer.getLong());
+		random.readState(buffer);
+	}
+	
+	/**
+	 * @return the seed the Simulation's random number generator was created with
 	 */
-	private void resetCellChangeStates() {
-		for (int row = 0; row < grid.getNumberOfRows(); row++) {
-            for (int column = 0; column < grid.getNumberOfColumns(); column++) {
-                grid.getCell(row, column).setHasChanged(false);
-            }
-        }
+	public long getSeed() {
+		return seed;
 	}
 	
 	/**
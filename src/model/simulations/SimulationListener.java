@@ -0,0 +1,25 @@
+package model.simulations;
+
+import model.grid.Grid;
+
+/**
+ * 
+ * Receives notice of the changes a Simulation makes to its Grid, so that a view can redraw the 
+ * Cells whose states changed. Simulations run without a listener when no view is attached
+ * 
+ * @author Stephen
+ *
+ */
+public interface SimulationListener {
+
+	/**
+	 * Called after each generation with the Cells that changed in it; Listeners must not keep the 
+	 * array, which is reused for the next generation
+	 * @param grid: the Simulation's Grid
+	 * @param changedCells: indices of the Cells that changed, as given by the Grid's getIndex
+	 * @param numberOfChangedCells: the number of Cells that changed, which is the number of 
+	 * indices in the array that are valid
+	 */
+	void cellsUpdated(Grid grid, int[] changedCells, int numberOfChangedCells);
+
+}
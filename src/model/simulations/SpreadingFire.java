@@ -1,31 +1,52 @@
 package model.simulations;
 
-import java.util.List;
+import java.nio.ByteBuffer;
 
-import javafx.scene.paint.Color;
-import model.cells.Cell;
 import model.cells.CellStates;
+import model.engines.LookupTableRule;
 import model.grid.Grid;
+import model.grid.Neighborhood;
+import model.grid.NeighborhoodType;
+import model.random.SplitMix64;
 
 /**
  * 
- * Simulation of Spreading Fire
+ * Simulation of Spreading Fire. Each row of the Grid draws from its own random stream, so a row 
+ * makes the same draws whichever thread evaluates it, and parallel runs reproduce sequential ones.
+ * With counter-based randomness, whether a tree catches fire is instead a hash of the seed, the 
+ * generation, and the Cell, so the outcome does not depend on evaluation order at all.
+ * The rules are compiled into a LookupTableRule, so each Cell's next state is looked up from its 
+ * packed neighborhood, and whole rows are packed at once
  *
  * @author Stephen
  *
  */
 public class SpreadingFire extends Simulation {
 
-	private double probabilityCatch;
+	private static final int NUMBER_OF_STATES = 3;
+	private final Neighborhood neighborhood;
+	private final SplitMix64[] rowRandoms;
+	private final double probabilityCatch;
+	private final LookupTableRule rule;
+	private final ThreadLocal<int[]> rowKeys;
+	private boolean counterBasedRandomness;
 	
 	/**
 	 * Instantiates a Simulation of Spreading Fire
 	 * @param grid: Simulation's Grid of Cells
 	 * @param probabilityCatch: the probability that a tree with a neighbor on fire ends up catching on fire
+	 * @param seed: the seed of the Simulation's random number generator
 	 */
-	public SpreadingFire(Grid grid, double probabilityCatch) {
-		super(grid);
+	public SpreadingFire(Grid grid, double probabilityCatch, long seed) {
+		super(grid, seed);
+		neighborhood = grid.getNeighborhood(NeighborhoodType.CARDINAL);
 		this.probabilityCatch = probabilityCatch;
+		rule = new LookupTableRule(NUMBER_OF_STATES, neighborhood.size(), new FireTransitions());
+		rowKeys = ThreadLocal.withInitial(() -> new int[grid.getNumberOfColumns()]);
+		rowRandoms = new SplitMix64[grid.getNumberOfRows()];
+		for (int row = 0; row < rowRandoms.length; row++) {
+			rowRandoms[row] = getRandom().split();
+		}
 	}
 
 	/**
@@ -35,56 +56,168 @@ public class SpreadingFire extends Simulation {
 	 * Otherwise, the Cell's state remains the same
 	 */
 	@Override
-	protected void applyRulesToCell(Cell cell) {
-		int nextState = cell.getState();
-		if (isTree(cell) && hasNeighborOnFire(cell) && Math.random() < probabilityCatch) {
-			nextState = CellStates.SPREADING_FIRE_BURNING.value();
-		}
-		else if (isBurning(cell)) {
-			nextState = CellStates.SPREADING_FIRE_EMPTY.value();
+	protected void applyRulesToCell(int row, int column) {
+		int key = getGrid().packNeighborhood(row, column, neighborhood, rule.getBitsPerState());
+		getGrid().setNextState(row, column, applyRule(key, row, column));
+	}
+	
+	/**
+	 * Packs the neighborhoods of the whole row at once, then looks up each Cell's next state
+	 */
+	@Override
+	protected void applyRulesToRow(int row) {
+		Grid grid = getGrid();
+		int[] keys = rowKeys.get();
+		grid.packNeighborhoods(row, neighborhood, rule.getBitsPerState(), keys);
+		for (int column = 0; column < grid.getNumberOfColumns(); column++) {
+			grid.setNextState(row, column, applyRule(keys[column], row, column));
 		}
-		cell.setState(nextState);
-		cell.setHasChanged(true);
 	}
 
 	/**
-	 * Changes color of the Cell to yellow if it is empty, green if it is a tree, and red if it is burning
+	 * Enables or disables counter-based randomness. While enabled, the draw that decides whether 
+	 * a tree catches fire is a pure function of (seed, generation, row, column), so a fire front is
+	 * identical no matter how many threads evaluate it, whether active set scheduling is enabled,
+	 * or how future engines order their work
+	 * @param enabled: true to hash draws from their Cell and generation; false to draw from per-row streams
+	 */
+	public void setCounterBasedRandomness(boolean enabled) {
+		counterBasedRandomness = enabled;
+	}
+	
+	/**
+	 * Adds the state of every row's random stream
+	 */
+	@Override
+	public int getStateSize() {
+		return super.getStateSize() + rowRandoms.length * SplitMix64.STATE_SIZE;
+	}
+	
+	/**
+	 * Writes the state of every row's random stream after the Simulation's own state
+	 */
+	@Override
+	public void writeState(ByteBuffer buffer) {
+		super.writeState(buffer);
+		for (SplitMix64 rowRandom : rowRandoms) {
+			rowRandom.writeState(buffer);
+		}
+	}
+	
+	/**
+	 * Restores the state of every row's random stream after the Simulation's own state
 	 */
 	@Override
-	protected void updateCellColor(Cell cell) {
-		int currentState = cell.getCurrentState();
-		if (currentState == CellStates.SPREADING_FIRE_EMPTY.value()) cell.setFill(Color.YELLOW);
-		if (currentState == CellStates.SPREADING_FIRE_TREE.value()) cell.setFill(Color.GREEN);
-		if (currentState == CellStates.SPREADING_FIRE_BURNING.value()) cell.setFill(Color.RED);		
+	public void readState(ByteBuffer buffer) {
+		super.readState(buffer);
+		for (SplitMix64 rowRandom : rowRandoms) {
+			rowRandom.readState(buffer);
+		}
 	}
 	
 	/**
-	 * 
-	 * @param cell: Cell whose neigbhor's are being checked for burning
+	 * @param key: the Cell's packed neighborhood
+	 * @param row: row of the Cell
+	 * @param column: column of the Cell
+	 * @return the Cell's next state, drawing only if its transition is stochastic
+	 */
+	private int applyRule(int key, int row, int column) {
+		return rule.isStochastic(key) ? rule.getNextState(key, drawProbability(row, column)) : rule.getNextState(key);
+	}
+	
+	/**
+	 * @param row: row of the Cell drawing
+	 * @param column: column of the Cell drawing
+	 * @return a pseudorandom double between 0.0 (inclusive) and 1.0 (exclusive)
+	 */
+	private double drawProbability(int row, int column) {
+		if (!counterBasedRandomness) return rowRandoms[row].nextDouble();
+		long generationKey = SplitMix64.hash(getSeed(), getGeneration());
+		return SplitMix64.toDouble(SplitMix64.hash(generationKey, getGrid().getIndex(row, column)));
+	}
+	
+	/**
+	 * Spreading Fire is synchronous: each Cell's next state depends only on the current generation
+	 */
+	@Override
+	protected boolean isSynchronous() {
+		return true;
+	}
+	
+	/**
+	 * Spreading Fire supports active set scheduling: a Cell can only change if it or one of its neighbors changed
+	 */
+	@Override
+	protected boolean supportsActiveSetScheduling() {
+		return true;
+	}
+	
+	/**
+	 * @return the neighbors whose states the rules read
+	 */
+	@Override
+	protected Neighborhood getActivationNeighborhood() {
+		return neighborhood;
+	}
+	
+	/**
+	 * Colors Cells yellow if they are empty, green if they are trees, and red if they are burning
+	 */
+	@Override
+	public String[] getStatePalette() {
+		String[] palette = new String[NUMBER_OF_STATES];
+		palette[CellStates.SPREADING_FIRE_EMPTY.value()] = "YELLOW";
+		palette[CellStates.SPREADING_FIRE_TREE.value()] = "GREEN";
+		palette[CellStates.SPREADING_FIRE_BURNING.value()] = "RED";
+		return palette;
+	}
+	
+	/**
+	 * @param neighborStates: the states of a Cell's neighbors
 	 * @return true if any of the Cell's neighbors are on fire; false otherwise
 	 */
-	private boolean hasNeighborOnFire(Cell cell) {
-		List<Cell> neighbors = getGrid().getCardinalNeighbors(cell.getRow(), cell.getColumn());
-		for (Cell neighbor : neighbors) {
-			if (isBurning(neighbor)) return true;
+	private boolean hasNeighborOnFire(int[] neighborStates) {
+		for (int neighborState : neighborStates) {
+			if (isBurning(neighborState)) return true;
 		}
 		return false;
 	}
 	
 	/**
-	 * @param cell: Cell whose state is being checked
-	 * @return true if the Cell is burning; false otherwise
+	 * @param state: state being checked
+	 * @return true if the state represents a burning Cell; false otherwise
+	 */
+	private boolean isBurning(int state) {
+		return state == CellStates.SPREADING_FIRE_BURNING.value();
+	}
+	
+	/**
+	 * @param state: state being checked
+	 * @return true if the state represents a tree; false otherwise
 	 */
-	private boolean isBurning(Cell cell) {
-		return cell.getState() == CellStates.SPREADING_FIRE_BURNING.value();
+	private boolean isTree(int state) {
+		return state == CellStates.SPREADING_FIRE_TREE.value();
 	}
 	
 	/**
-	 * @param cell: Cell whose state is being checked
-	 * @return true if the Cell is a tree; false otherwise
+	 * The rules of Spreading Fire, from which the lookup table is compiled: a tree with a neighbor on 
+	 * fire catches fire with probability probabilityCatch, a burning Cell becomes empty, and every 
+	 * other Cell keeps its state
 	 */
-	private boolean isTree(Cell cell) {
-		return cell.getState() == CellStates.SPREADING_FIRE_TREE.value();
+	private class FireTransitions implements LookupTableRule.TransitionFunction {
+
+		@Override
+		public int getNextState(int state, int[] neighborStates) {
+			if (isTree(state) && hasNeighborOnFire(neighborStates)) return CellStates.SPREADING_FIRE_BURNING.value();
+			if (isBurning(state)) return CellStates.SPREADING_FIRE_EMPTY.value();
+			return state;
+		}
+
+		@Override
+		public double getProbability(int state, int[] neighborStates) {
+			if (isTree(state) && hasNeighborOnFire(neighborStates)) return probabilityCatch;
+			return LookupTableRule.CERTAIN;
+		}
 	}
 
 }
@@ -1,34 +1,39 @@
 package model.simulations;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.nio.ByteBuffer;
 
-import javafx.scene.paint.Color;
-import model.agents.SugarscapeAgent;
-import model.agents.SugarscapePatch;
-import model.cells.Cell;
+import model.agents.SugarscapeAgents;
+import model.agents.SugarscapePatches;
 import model.cells.CellStates;
 import model.grid.Grid;
+import model.grid.Neighborhood;
+import model.grid.NeighborhoodType;
 
 /**
- * Simulation of Sugarscape
+ * Simulation of Sugarscape. Agents are kept in a SugarscapeAgents registry that is iterated directly,
+ * so moving agents costs time proportional to the number of agents rather than the number of Cells,
+ * and sugar is kept in a SugarscapePatches field of primitive arrays
  * 
  * @author Stephen
  * 
  */
 public class Sugarscape extends Simulation {
 
-    private List<List<SugarscapePatch>> patches;
-    private List<SugarscapePatch> processedPatches;
+    private SugarscapePatches patches;
+    private static final int NO_PATCH = -1;
+    private final double PROBABILITY_START_WITH_AGENT = 0.5;
+    private SugarscapeAgents agents;
+    private Neighborhood[] visionNeighborhoods;
+    private int[] neighbors;
 
     /**
      * Instantiates Simulation of Sugarscape
      * @param grid: Simulation's Grid of Cells
+     * @param seed: the seed of the Simulation's random number generator
      */
-    public Sugarscape(Grid grid) {
-        super(grid);
-        processedPatches = new ArrayList<>();
-        initializePatches();
+    public Sugarscape(Grid grid, long seed) {
+        super(grid, seed);
+        initializeVisionNeighborhoods();
     }
 
     /**
@@ -37,10 +42,10 @@ public class Sugarscape extends Simulation {
      */
     @Override
     public void updateGrid() {
+        if (patches == null) initializePatches();
         growSugarOnPatches();
         moveAgents();
         super.updateGrid();
-        processedPatches.clear();
     }
     
     /**
@@ -48,140 +53,188 @@ public class Sugarscape extends Simulation {
      * corresponding patch
      */
     @Override
-    protected void applyRulesToCell(Cell cell) {
-    	cell.setState(patches.get(cell.getRow()).get(cell.getColumn()).getSugar());
+    protected void applyRulesToCell(int row, int column) {
+    	getGrid().setNextState(row, column, patches.getSugar(getGrid().getIndex(row, column)));
     }
 
     /**
-     * Updates Cell's color according to its current state
-     * Color changes to white if the cell's patch contains no sugar, peachpuff if the patch
+     * Colors Cells according to the amount of sugar in their patch:
+     * white if the patch contains no sugar, peachpuff if the patch
      * contains a low amount of sugar, orange if the patch contains a high amount of sugar,
      * and darkorange if the patch contains the maximum amount of sugar
      */
     @Override
-    protected void updateCellColor(Cell cell) {
-        int currentState = cell.getCurrentState();
-        if (currentState == CellStates.SUGARSCAPE_NONE.value()) cell.setFill(Color.WHITE);
-        if (currentState == CellStates.SUGARSCAPE_LOW.value()) cell.setFill(Color.PEACHPUFF);
-        if (currentState == CellStates.SUGARSCAPE_HIGH.value()) cell.setFill(Color.ORANGE);
-        if (currentState == CellStates.SUGARSCAPE_MAX.value()) cell.setFill(Color.DARKORANGE);
+    public String[] getStatePalette() {
+        String[] palette = new String[4];
+        palette[CellStates.SUGARSCAPE_NONE.value()] = "WHITE";
+        palette[CellStates.SUGARSCAPE_LOW.value()] = "PEACHPUFF";
+        palette[CellStates.SUGARSCAPE_HIGH.value()] = "ORANGE";
+        palette[CellStates.SUGARSCAPE_MAX.value()] = "DARKORANGE";
+        return palette;
     }
 
     /**
-     * Initializes the patches for each cell
+     * Sugarscape supports active set scheduling: a Cell only changes when the sugar on its
+     * patch grows or is taken by an agent, and those patches are marked active
+     */
+    @Override
+    protected boolean supportsActiveSetScheduling() {
+        return true;
+    }
+
+    /**
+     * Adds the patch and agent tables
+     */
+    @Override
+    public int getStateSize() {
+        if (patches == null) initializePatches();
+        return super.getStateSize() + patches.getStateSize() + agents.getStateSize();
+    }
+
+    /**
+     * Writes the patch table and then the agent table after the Simulation's own state
+     */
+    @Override
+    public void writeState(ByteBuffer buffer) {
+        if (patches == null) initializePatches();
+        super.writeState(buffer);
+        patches.writeState(buffer);
+        agents.writeState(buffer);
+    }
+
+    /**
+     * Restores the patch and agent tables in place of the random ones the first generation would create
+     */
+    @Override
+    public void readState(ByteBuffer buffer) {
+        int numberOfCells = getGrid().getNumberOfRows() * getGrid().getNumberOfColumns();
+        patches = new SugarscapePatches(numberOfCells);
+        agents = new SugarscapeAgents(numberOfCells, getRandom().split());
+        super.readState(buffer);
+        patches.readState(buffer);
+        agents.readState(buffer);
+    }
+
+    /**
+     * Initializes the patches for each cell and places an agent on a patch 
+     * PROBABILITY_START_WITH_AGENT percent of the time; Done before the first generation rather than
+     * on construction, so that a Simulation restored from a snapshot skips it
      */
     private void initializePatches() {
-        patches = new ArrayList<List<SugarscapePatch>>();
         Grid grid = getGrid();
-        for (int row = 0; row < grid.getNumberOfRows(); row++) {
-            List<SugarscapePatch> rowOfPatches = new ArrayList<>();
-            for (int column = 0; column < grid.getNumberOfColumns(); column++) {
-                rowOfPatches.add(new SugarscapePatch());
+        int numberOfCells = grid.getNumberOfRows() * grid.getNumberOfColumns();
+        patches = new SugarscapePatches(numberOfCells, getRandom().split());
+        agents = new SugarscapeAgents(numberOfCells, getRandom().split());
+        for (int cell = 0; cell < numberOfCells; cell++) {
+            if (getRandom().nextDouble() < PROBABILITY_START_WITH_AGENT) {
+                agents.add(cell);
             }
-            patches.add(rowOfPatches);
         }
     }
 
     /**
-     * Grows sugar on each patch
+     * Retrieves the cardinal neighborhood for each possible agent vision from the Grid
+     */
+    private void initializeVisionNeighborhoods() {
+        visionNeighborhoods = new Neighborhood[SugarscapeAgents.MAX_VISION + 1];
+        for (int vision = 1; vision <= SugarscapeAgents.MAX_VISION; vision++) {
+            visionNeighborhoods[vision] = getGrid().getNeighborhood(NeighborhoodType.CARDINAL, vision);
+        }
+        neighbors = new int[visionNeighborhoods[SugarscapeAgents.MAX_VISION].size()];
+    }
+
+    /**
+     * Grows sugar on each patch; Marks the Cells of patches whose sugar changed as active
      */
     private void growSugarOnPatches() {
-        for (int row = 0; row < getGrid().getNumberOfRows(); row++) {
-            for (int column = 0; column < getGrid().getNumberOfColumns(); column++) {
-                patches.get(row).get(column).growSugar();
-            }
+        if (usesActiveSetScheduling() && patches.willGrowSugar()) markGrowingPatchesActive();
+        patches.growSugar();
+    }
+
+    /**
+     * Marks the Cells of patches that are below their capacity, and so are about to grow sugar, as active
+     */
+    private void markGrowingPatchesActive() {
+        int columns = getGrid().getNumberOfColumns();
+        int numberOfCells = getGrid().getNumberOfRows() * columns;
+        for (int cell = 0; cell < numberOfCells; cell++) {
+            if (patches.canGrow(cell)) markCellActive(cell / columns, cell % columns);
         }
     }
 
     /**
-     * Moves agents 
+     * Moves each agent once; An agent that dies is replaced by the last agent in the registry,
+     * which is moved next
      */
     private void moveAgents() {
-        for (int row = 0; row < getGrid().getNumberOfRows(); row++) {
-            for (int column = 0; column < getGrid().getNumberOfColumns(); column++) {
-                SugarscapePatch patch = patches.get(row).get(column);
-                if (patch.hasAgent() && !processedPatches.contains(patch)) {
-                    moveAgent(row, column);
-                }
-            }
+        int agent = 0;
+        while (agent < agents.size()) {
+            if (moveAgent(agent)) agent++;
         }
     }
     
     /**
-     * Moves agent at the given row and column to the neighboring sugar patch
-     * with the maximum amount of sugar
-     * @param row: row of the agent
-     * @param column: column of the agent
-     */
-    private void moveAgent(int row, int column) {
-    	SugarscapePatch currentPatch = patches.get(row).get(column);
-    	SugarscapePatch maxSugarPatch = findMaxSugarPatch(row, column);
-    	if (maxSugarPatch == null) return;
-    	SugarscapeAgent agent = currentPatch.getAgent();
-    	maxSugarPatch.setAgent(agent);
-    	handleSugarTransfer(agent, maxSugarPatch);
-    	if (agent.willDie()) maxSugarPatch.removeAgent();
-    	currentPatch.removeAgent();
-    	processedPatches.add(maxSugarPatch);
+     * Moves agent to the neighboring sugar patch with the maximum amount of sugar
+     * @param agent: the agent to be moved
+     * @return true if the agent is still alive; false if it died and was removed
+     */
+    private boolean moveAgent(int agent) {
+    	int columns = getGrid().getNumberOfColumns();
+    	int cell = agents.getCell(agent);
+    	int maxSugarCell = findMaxSugarPatch(cell / columns, cell % columns, agents.getVision(agent));
+    	if (maxSugarCell == NO_PATCH) return true;
+    	markCellActive(maxSugarCell / columns, maxSugarCell % columns);
+    	agents.move(agent, maxSugarCell);
+    	handleSugarTransfer(agent, maxSugarCell);
+    	if (!agents.willDie(agent)) return true;
+    	agents.remove(agent);
+    	return false;
     }
     
     /**
      * Transfers sugar from a sugar patch to an agent
      * @param agent: agent receiving the sugar
-     * @param patch: patch to take sugar from
+     * @param patch: index of the patch to take sugar from
      */
-    private void handleSugarTransfer(SugarscapeAgent agent, SugarscapePatch patch) {
-    	agent.takeSugarFromPatch(patch.getSugar());
-    	agent.metabolize();
-    	patch.depleteSugar();
+    private void handleSugarTransfer(int agent, int patch) {
+    	agents.takeSugarFromPatch(agent, patches.getSugar(patch));
+    	agents.metabolize(agent);
+    	patches.depleteSugar(patch);
     }
     
     /**
      * Finds the sugar patch near the given row and column with the maximum amount of sugar
-     * Sugar patches searched depends on agent's vision
+     * Sugar patches searched depends on agent's vision; Patches are searched in order of
+     * increasing distance from the agent
      * @param row: agent's row
      * @param column: agent's column
-     * @return sugar patch near given row and column with max amount of sugar
-     */
-    private SugarscapePatch findMaxSugarPatch(int row, int column) {
-    	int vision = patches.get(row).get(column).getAgent().getVision();
-    	SugarscapePatch maxSugarPatch = null;
-    	for (int multiplier = 1; multiplier <= vision; multiplier++) {
-    		List<Cell> neighbors = getGrid().getExtendedCardinalNeighobors(row, column, multiplier);
-    		List<SugarscapePatch> neighborPatches = getNeighborPatches(neighbors);
-    		maxSugarPatch = updateMaxSugarPatch(maxSugarPatch, neighborPatches);
-    	}
-    	return maxSugarPatch;
+     * @param vision: agent's vision
+     * @return index of the Cell whose sugar patch near given row and column has max amount of sugar,
+     * or NO_PATCH if the agent cannot see any empty patch
+     */
+    private int findMaxSugarPatch(int row, int column, int vision) {
+    	if (vision == 0) return NO_PATCH;
+    	int numberOfNeighbors = getGrid().getNeighborIndices(row, column, visionNeighborhoods[vision], neighbors);
+    	return findMaxSugarContender(numberOfNeighbors);
     }
     
     /**
-     * Updates max sugar patch if neighboring sugar patch has more sugar than current max sugar patch
+     * Finds the neighboring sugar patch without an agent that has the most sugar; Ties go to the
+     * nearest patch, since neighbors are ordered by increasing distance
      * 
-     * @param maxSugarPatch: patch found with most sugar so far
-     * @param contenders: patches that may have more sugar than current max sugar patch
-     * @return the sugar patch with the maximum amount of sugar
-     */
-    private SugarscapePatch updateMaxSugarPatch(SugarscapePatch maxSugarPatch, List<SugarscapePatch> contenders) {
-    	if (contenders.isEmpty()) return maxSugarPatch;
-    	if (maxSugarPatch == null) maxSugarPatch = contenders.get(0);
-    	for (SugarscapePatch patch : contenders) {
-    		if (!patch.hasAgent())
-    			maxSugarPatch = patch.getSugar() > maxSugarPatch.getSugar() ? patch : maxSugarPatch;
-    	}
-    	return maxSugarPatch;
-    }
-    
-    /**
-     * Given list of neighbor Cells, return List of those Cells' patches
-     * @param neighbors: List of neighbor Cells
-     * @return List of patches associated with those neighbor Cells
+     * @param numberOfContenders: number of neighbor indices held in the neighbors array whose patches
+     * may have the maximum amount of sugar
+     * @return index of the Cell whose patch has the maximum amount of sugar, or NO_PATCH if every contender
+     * holds an agent
      */
-    private List<SugarscapePatch> getNeighborPatches(List<Cell> neighbors) {
-    	List<SugarscapePatch> neighborPatches = new ArrayList<>();
-    	for (Cell neighbor : neighbors) {
-    		neighborPatches.add(patches.get(neighbor.getRow()).get(neighbor.getColumn()));
+    private int findMaxSugarContender(int numberOfContenders) {
+    	int maxSugarCell = NO_PATCH;
+    	for (int i = 0; i < numberOfContenders; i++) {
+    		if (agents.isOccupied(neighbors[i])) continue;
+    		if (maxSugarCell == NO_PATCH || patches.getSugar(neighbors[i]) > patches.getSugar(maxSugarCell))
+    			maxSugarCell = neighbors[i];
     	}
-    	return neighborPatches;
+    	return maxSugarCell;
     }
 
 }
@@ -0,0 +1,234 @@
+package persistence;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import model.simulations.Simulation;
+
+/**
+ *
+ * Saves snapshots of a running Simulation every so many generations or seconds. The thread running
+ * the Simulation only captures a copy of its state; packing and writing the snapshot happen on a
+ * background thread. While a snapshot is still being written, checkpoints that fall due are put off
+ * until it is done, so at most one snapshot is held besides the live Simulation. Each checkpoint is
+ * written to a temporary file and then renamed, so a crash never leaves a partial checkpoint behind,
+ * and only the most recent checkpoints are kept
+ *
+ * Checkpoints are named name-generation.snapshot, where the name defaults to the name of the
+ * Simulation's XML file and is stored in the snapshot, so a resumed Simulation keeps adding to
+ * the same series
+ *
+ * @author Stephen
+ *
+ */
+public class CheckpointScheduler {
+
+	public static final String CHECKPOINT_GENERATIONS = "checkpointGenerations";
+	public static final String CHECKPOINT_SECONDS = "checkpointSeconds";
+	public static final String CHECKPOINT_DIRECTORY = "checkpointDirectory";
+	public static final String CHECKPOINTS_RETAINED = "checkpointsRetained";
+	public static final String CHECKPOINT_NAME = "checkpointName";
+	private static final String DEFAULT_DIRECTORY = "checkpoints";
+	private static final int DEFAULT_CHECKPOINTS_RETAINED = 3;
+	private static final String NAME_SEPARATOR = "-";
+	private static final String TEMPORARY_EXTENSION = ".tmp";
+	private static final double NANOSECONDS_PER_SECOND = 1e9;
+	private final String ERROR_MESSAGE_WRITE_FAILED = "Checkpoint Could Not Be Written";
+	private final Simulation simulation;
+	private final Map<String, String> parameters;
+	private final Path directory;
+	private final String name;
+	private final long generationInterval;
+	private final long nanosecondInterval;
+	private final int checkpointsRetained;
+	private final ExecutorService writer;
+	private Future<?> pendingWrite;
+	private long lastCheckpointGeneration;
+	private long lastCheckpointTime;
+	private volatile Exception failure;
+	private boolean failureReported;
+
+	/**
+	 * Instantiates a scheduler that starts counting towards the first checkpoint from the
+	 * Simulation's current generation
+	 * @param simulation: the Simulation to checkpoint
+	 * @param parameters: the value of every parameter the Simulation was generated with, keyed by its XML tag
+	 * @param directory: directory the checkpoints are written to, which is created if needed
+	 * @param name: name the checkpoints are given
+	 * @param generationInterval: number of generations between checkpoints, or 0 to not checkpoint by generation
+	 * @param secondsInterval: number of seconds between checkpoints, or 0 to not checkpoint by time
+	 * @param checkpointsRetained: number of most recent checkpoints that are kept
+	 */
+	public CheckpointScheduler(Simulation simulation, Map<String, String> parameters, Path directory, String name,
+			long generationInterval, double secondsInterval, int checkpointsRetained) {
+		this.simulation = simulation;
+		this.parameters = new LinkedHashMap<>(parameters);
+		this.parameters.put(CHECKPOINT_NAME, name);
+		this.directory = directory;
+		this.name = name;
+		this.generationInterval = generationInterval;
+		this.nanosecondInterval = (long) (secondsInterval * NANOSECONDS_PER_SECOND);
+		this.checkpointsRetained = Math.max(1, checkpointsRetained);
+		writer = Executors.newSingleThreadExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "checkpoint-writer");
+			thread.setDaemon(true);
+			return thread;
+		});
+		lastCheckpointGeneration = simulation.getGeneration();
+		lastCheckpointTime = System.nanoTime();
+	}
+
+	/**
+	 * Creates a scheduler from the checkpoint parameters of a Simulation's XML file: checkpointGenerations
+	 * and checkpointSeconds, at least one of which enables checkpointing, and the optional
+	 * checkpointDirectory, checkpointsRetained and checkpointName
+	 * @param simulation: the Simulation to checkpoint
+	 * @param parameters: the value of every parameter the Simulation was generated with, keyed by its XML tag
+	 * @param defaultName: name the checkpoints are given unless the parameters name them
+	 * @return the scheduler, or null if the parameters do not enable checkpointing
+	 */
+	public static CheckpointScheduler fromParameters(Simulation simulation, Map<String, String> parameters,
+			String defaultName) {
+		String generations = parameters.get(CHECKPOINT_GENERATIONS);
+		String seconds = parameters.get(CHECKPOINT_SECONDS);
+		if (generations == null && seconds == null) return null;
+		String retained = parameters.get(CHECKPOINTS_RETAINED);
+		return new CheckpointScheduler(simulation, parameters, getDirectory(parameters), getName(parameters, defaultName),
+				generations == null ? 0 : Long.parseLong(generations), seconds == null ? 0 : Double.parseDouble(seconds),
+				retained == null ? DEFAULT_CHECKPOINTS_RETAINED : Integer.parseInt(retained));
+	}
+
+	/**
+	 * Finds the most recent checkpoint written for a Simulation with the given parameters
+	 * @param parameters: the value of every parameter of the Simulation's XML file, keyed by its XML tag
+	 * @param defaultName: name the checkpoints are given unless the parameters name them
+	 * @return the checkpoint with the highest generation, or null if there is none
+	 */
+	public static Path findLatestCheckpoint(Map<String, String> parameters, String defaultName) throws IOException {
+		List<Path> checkpoints = listCheckpoints(getDirectory(parameters), getName(parameters, defaultName));
+		return checkpoints.isEmpty() ? null : checkpoints.get(checkpoints.size() - 1);
+	}
+
+	/**
+	 * Captures a snapshot and starts writing it in the background if a checkpoint is due and the previous
+	 * checkpoint has been written; Called by the thread running the Simulation after each update
+	 * @throws IllegalStateException if the previous checkpoint could not be written
+	 */
+	public void checkpointIfDue() {
+		if (failure != null) reportFailure();
+		if (!isDue() || (pendingWrite != null && !pendingWrite.isDone())) return;
+		SimulationSnapshot snapshot = SimulationSnapshot.capture(simulation, parameters);
+		lastCheckpointGeneration = simulation.getGeneration();
+		lastCheckpointTime = System.nanoTime();
+		pendingWrite = writer.submit(() -> write(snapshot));
+	}
+
+	/**
+	 * Waits for the checkpoint being written, if any, and stops the background thread
+	 * @throws IllegalStateException if a checkpoint could not be written and checkpointIfDue has not
+	 * already reported it, as when the last checkpoint of a run fails
+	 */
+	public void close() throws InterruptedException {
+		writer.shutdown();
+		writer.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+		if (failure != null && !failureReported) reportFailure();
+	}
+
+	/**
+	 * @throws IllegalStateException caused by the failure of a checkpoint, which is then known to be reported
+	 */
+	private void reportFailure() {
+		failureReported = true;
+		throw new IllegalStateException(ERROR_MESSAGE_WRITE_FAILED, failure);
+	}
+
+	/**
+	 * @return true if enough generations or time have passed since the last checkpoint; false otherwise
+	 */
+	private boolean isDue() {
+		if (generationInterval > 0 && simulation.getGeneration() - lastCheckpointGeneration >= generationInterval) return true;
+		return nanosecondInterval > 0 && System.nanoTime() - lastCheckpointTime >= nanosecondInterval;
+	}
+
+	/**
+	 * Writes a checkpoint and deletes the checkpoints beyond the number retained; Runs on the background thread,
+	 * so any failure, checked or not, is recorded for checkpointIfDue to report rather than lost with the task
+	 * @param snapshot: the snapshot to be written
+	 */
+	private void write(SimulationSnapshot snapshot) {
+		try {
+			Files.createDirectories(directory);
+			Path checkpoint = directory.resolve(name + NAME_SEPARATOR + snapshot.getGeneration() + SimulationSnapshot.FILE_EXTENSION);
+			Path temporary = directory.resolve(checkpoint.getFileName() + TEMPORARY_EXTENSION);
+			snapshot.save(temporary);
+			Files.move(temporary, checkpoint, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			List<Path> checkpoints = listCheckpoints(directory, name);
+			for (int i = 0; i < checkpoints.size() - checkpointsRetained; i++) {
+				Files.deleteIfExists(checkpoints.get(i));
+			}
+		} catch (IOException | RuntimeException e) {
+			failure = e;
+		}
+	}
+
+	/**
+	 * @param directory: directory holding the checkpoints
+	 * @param name: name the checkpoints are given
+	 * @return every checkpoint with the given name in the directory, from the lowest generation to the highest
+	 */
+	private static List<Path> listCheckpoints(Path directory, String name) throws IOException {
+		List<Path> checkpoints = new ArrayList<>();
+		if (!Files.isDirectory(directory)) return checkpoints;
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, name + NAME_SEPARATOR + "*" + SimulationSnapshot.FILE_EXTENSION)) {
+			for (Path file : files) {
+				if (getGeneration(file, name) >= 0) checkpoints.add(file);
+			}
+		}
+		checkpoints.sort(Comparator.comparingLong(file -> getGeneration(file, name)));
+		return checkpoints;
+	}
+
+	/**
+	 * @param file: a file whose name may be that of a checkpoint
+	 * @param name: name the checkpoints are given
+	 * @return the generation of the checkpoint, or -1 if the file is not a checkpoint with the given name
+	 */
+	private static long getGeneration(Path file, String name) {
+		String fileName = file.getFileName().toString();
+		String generation = fileName.substring(name.length() + NAME_SEPARATOR.length(),
+				fileName.length() - SimulationSnapshot.FILE_EXTENSION.length());
+		if (generation.isEmpty() || !generation.chars().allMatch(Character::isDigit)) return -1;
+		return Long.parseLong(generation);
+	}
+
+	/**
+	 * @param parameters: the value of every parameter of a Simulation's XML file, keyed by its XML tag
+	 * @return the directory the Simulation's checkpoints are written to
+	 */
+	private static Path getDirectory(Map<String, String> parameters) {
+		return Paths.get(parameters.getOrDefault(CHECKPOINT_DIRECTORY, DEFAULT_DIRECTORY));
+	}
+
+	/**
+	 * @param parameters: the value of every parameter of a Simulation's XML file, keyed by its XML tag
+	 * @param defaultName: name used unless the parameters name the checkpoints
+	 * @return name the Simulation's checkpoints are given
+	 */
+	private static String getName(Map<String, String> parameters, String defaultName) {
+		return parameters.getOrDefault(CHECKPOINT_NAME, defaultName);
+	}
+
+}
@@ -0,0 +1,365 @@
+package persistence;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import model.grid.Grid;
+import model.simulations.Simulation;
+import preprocessing.SimulationConfiguration;
+import preprocessing.SimulationGenerator;
+import preprocessing.SimulationRegistry;
+
+/**
+ *
+ * Binary snapshot of a running Simulation, from which the Simulation can be resumed exactly where
+ * it was. Snapshots are written and read through memory mapped files, so loading one costs little
+ * more than reading its bytes. A snapshot file holds, in order:
+ *
+ * a header: magic number, format version, simulation type, grid type, cell type, number of rows and
+ * columns, generation, and every other parameter of the Simulation's XML file as key and value pairs;
+ * the state of every Cell, packed into 1, 2, 4 or 8 bits depending on the Simulation's number of states;
+ * the Simulation's own state as written by Simulation.writeState: its random number generator's state
+ * followed by state specific to the Simulation, such as Sugarscape's agent and patch tables
+ *
+ * @author Stephen
+ *
+ */
+public class SimulationSnapshot {
+
+	public static final String FILE_EXTENSION = ".snapshot";
+	private static final int MAGIC_NUMBER = 0x43415353;
+	private static final int VERSION = 1;
+	private static final String SIMULATION_TYPE = "simulationType";
+	private static final String GRID_TYPE = "gridType";
+	private static final String CELL_TYPE = "cellType";
+	private static final String NUMBER_OF_ROWS = "numberOfRows";
+	private static final String NUMBER_OF_COLUMNS = "numberOfColumns";
+	private static final String SEED = "seed";
+	private static final String[] HEADER_KEYS = {SIMULATION_TYPE, GRID_TYPE, CELL_TYPE, NUMBER_OF_ROWS, NUMBER_OF_COLUMNS};
+	private static final String ERROR_MESSAGE_NOT_A_SNAPSHOT = "File Is Not a Simulation Snapshot";
+	private static final String ERROR_MESSAGE_UNSUPPORTED_VERSION = "Snapshot Was Written by an Unsupported Version: ";
+	private static final String ERROR_MESSAGE_TRUNCATED = "Snapshot File Is Truncated";
+	private static final String ERROR_MESSAGE_TOO_LARGE = "Snapshot Would Exceed the Largest File That Can Be Mapped";
+	private final Map<String, String> parameters;
+	private final int rows;
+	private final int columns;
+	private final long generation;
+	private final int bitsPerState;
+	private final byte[] states;
+	private final ByteBuffer simulationState;
+
+	/**
+	 * Instantiates a snapshot
+	 * @param parameters: the value of every parameter, keyed by its XML tag, including those in the header
+	 * @param generation: the generation the Simulation was at
+	 * @param bitsPerState: the number of bits each packed state takes
+	 * @param states: the state of every Cell, indexed as given by Grid.getIndex
+	 * @param simulationState: the bytes written by Simulation.writeState
+	 */
+	private SimulationSnapshot(Map<String, String> parameters, long generation, int bitsPerState, byte[] states,
+			ByteBuffer simulationState) {
+		this.parameters = parameters;
+		this.rows = Integer.parseInt(parameters.get(NUMBER_OF_ROWS));
+		this.columns = Integer.parseInt(parameters.get(NUMBER_OF_COLUMNS));
+		this.generation = generation;
+		this.bitsPerState = bitsPerState;
+		this.states = states;
+		this.simulationState = simulationState;
+	}
+
+	/**
+	 * Captures the current generation of a Simulation; The snapshot holds copies, so the Simulation
+	 * may keep running while the snapshot is saved. Capturing only copies the state buffer and the 
+	 * Simulation's own state; packing is left to save
+	 * @param simulation: the Simulation to capture, which must not be updated while it is captured
+	 * @param parameters: the value of every parameter the Simulation was generated with, keyed by its XML tag
+	 * @return the snapshot
+	 */
+	public static SimulationSnapshot capture(Simulation simulation, Map<String, String> parameters) {
+		Grid grid = simulation.getGrid();
+		Map<String, String> snapshotParameters = new LinkedHashMap<>(parameters);
+		snapshotParameters.put(NUMBER_OF_ROWS, Integer.toString(grid.getNumberOfRows()));
+		snapshotParameters.put(NUMBER_OF_COLUMNS, Integer.toString(grid.getNumberOfColumns()));
+		snapshotParameters.put(SEED, Long.toString(simulation.getSeed()));
+		int bitsPerState = getBitsPerState(simulation.getStatePalette().length);
+		byte[] states = new byte[grid.getNumberOfRows() * grid.getNumberOfColumns()];
+		grid.copyStates(states);
+		ByteBuffer simulationState = ByteBuffer.allocate(simulation.getStateSize());
+		simulation.writeState(simulationState);
+		simulationState.flip();
+		return new SimulationSnapshot(snapshotParameters, simulation.getGeneration(), bitsPerState, states,
+				simulationState);
+	}
+
+	/**
+	 * Reads a snapshot from a file
+	 * @param path: the snapshot file
+	 * @return the snapshot
+	 * @throws IOException if the file cannot be read
+	 * @throws IllegalArgumentException if the file is not a snapshot this version can read
+	 */
+	public static SimulationSnapshot load(Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			return read(buffer);
+		} catch (BufferUnderflowException e) {
+			throw new IllegalArgumentException(ERROR_MESSAGE_TRUNCATED, e);
+		}
+	}
+
+	/**
+	 * Writes the snapshot to a file, replacing the file if it exists
+	 * @param path: the snapshot file
+	 * @throws IOException if the file cannot be written
+	 */
+	public void save(Path path) throws IOException {
+		long size = getHeaderSize() + getPackedSize(states.length, bitsPerState) + Integer.BYTES + simulationState.remaining();
+		if (size > Integer.MAX_VALUE) throw new IllegalArgumentException(ERROR_MESSAGE_TOO_LARGE);
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+			writeHeader(buffer);
+			packStates(buffer);
+			buffer.putInt(simulationState.remaining());
+			buffer.put(simulationState.duplicate());
+			buffer.force();
+		}
+	}
+
+	/**
+	 * Generates the Simulation the snapshot was captured from, on a new Grid holding the snapshot's
+	 * states, and restores its state so it continues exactly where the captured Simulation was
+	 * @return the resumed Simulation
+	 * @throws IllegalArgumentException if the snapshot's Simulation or Grid type is not registered
+	 */
+	public Simulation restoreSimulation() {
+		Grid grid = createGrid();
+		grid.setStates(states);
+		Simulation simulation = new SimulationGenerator(new SimulationConfiguration(parameters, grid)).getSimulation();
+		simulation.readState(simulationState.duplicate());
+		return simulation;
+	}
+
+	/**
+	 * @return the value of every parameter the Simulation was generated with, keyed by its XML tag
+	 */
+	public Map<String, String> getParameters() {
+		return Collections.unmodifiableMap(parameters);
+	}
+
+	/**
+	 * @return the type of Cell used to display the Grid
+	 */
+	public String getCellType() {
+		return parameters.get(CELL_TYPE);
+	}
+
+	/**
+	 * @return the generation the Simulation was at when captured
+	 */
+	public long getGeneration() {
+		return generation;
+	}
+
+	/**
+	 * Reads a snapshot from a buffer positioned at its first byte
+	 * @param buffer: buffer holding the snapshot
+	 * @return the snapshot, whose Simulation state is a view of the buffer
+	 */
+	private static SimulationSnapshot read(ByteBuffer buffer) {
+		if (buffer.remaining() < Integer.BYTES || buffer.getInt() != MAGIC_NUMBER) {
+			throw new IllegalArgumentException(ERROR_MESSAGE_NOT_A_SNAPSHOT);
+		}
+		int version = buffer.getInt();
+		if (version != VERSION) throw new IllegalArgumentException(ERROR_MESSAGE_UNSUPPORTED_VERSION + version);
+		Map<String, String> parameters = new LinkedHashMap<>();
+		parameters.put(SIMULATION_TYPE, readString(buffer));
+		parameters.put(GRID_TYPE, readString(buffer));
+		parameters.put(CELL_TYPE, readString(buffer));
+		parameters.put(NUMBER_OF_ROWS, Integer.toString(buffer.getInt()));
+		parameters.put(NUMBER_OF_COLUMNS, Integer.toString(buffer.getInt()));
+		long generation = buffer.getLong();
+		int numberOfParameters = buffer.getInt();
+		for (int i = 0; i < numberOfParameters; i++) {
+			parameters.put(readString(buffer), readString(buffer));
+		}
+		int bitsPerState = buffer.get();
+		if (!isPackedSize(bitsPerState)) throw new IllegalArgumentException(ERROR_MESSAGE_NOT_A_SNAPSHOT);
+		long numberOfCells = Long.parseLong(parameters.get(NUMBER_OF_ROWS)) * Long.parseLong(parameters.get(NUMBER_OF_COLUMNS));
+		byte[] states = unpackStates(slice(buffer, getPackedSize(numberOfCells, bitsPerState)), numberOfCells, bitsPerState);
+		ByteBuffer simulationState = slice(buffer, buffer.getInt());
+		return new SimulationSnapshot(parameters, generation, bitsPerState, states, simulationState);
+	}
+
+	/**
+	 * Writes the header
+	 * @param buffer: buffer receiving getHeaderSize bytes
+	 */
+	private void writeHeader(ByteBuffer buffer) {
+		buffer.putInt(MAGIC_NUMBER);
+		buffer.putInt(VERSION);
+		writeString(buffer, parameters.get(SIMULATION_TYPE));
+		writeString(buffer, parameters.get(GRID_TYPE));
+		writeString(buffer, parameters.get(CELL_TYPE));
+		buffer.putInt(rows);
+		buffer.putInt(columns);
+		buffer.putLong(generation);
+		Map<String, String> otherParameters = getOtherParameters();
+		buffer.putInt(otherParameters.size());
+		for (Map.Entry<String, String> parameter : otherParameters.entrySet()) {
+			writeString(buffer, parameter.getKey());
+			writeString(buffer, parameter.getValue());
+		}
+		buffer.put((byte) bitsPerState);
+	}
+
+	/**
+	 * @return the number of bytes writeHeader writes
+	 */
+	private long getHeaderSize() {
+		long size = 2 * Integer.BYTES + 2 * Integer.BYTES + Long.BYTES + Integer.BYTES + Byte.BYTES;
+		size += getStringSize(parameters.get(SIMULATION_TYPE)) + getStringSize(parameters.get(GRID_TYPE))
+				+ getStringSize(parameters.get(CELL_TYPE));
+		for (Map.Entry<String, String> parameter : getOtherParameters().entrySet()) {
+			size += getStringSize(parameter.getKey()) + getStringSize(parameter.getValue());
+		}
+		return size;
+	}
+
+	/**
+	 * @return every parameter that does not have its own field in the header
+	 */
+	private Map<String, String> getOtherParameters() {
+		Map<String, String> otherParameters = new LinkedHashMap<>(parameters);
+		for (String key : HEADER_KEYS) {
+			otherParameters.remove(key);
+		}
+		return otherParameters;
+	}
+
+	/**
+	 * @return an empty Grid of the snapshot's type and size
+	 */
+	private Grid createGrid() {
+		return SimulationRegistry.getDefault().getGridFactory(parameters.get(GRID_TYPE)).createGrid(rows, columns);
+	}
+
+	/**
+	 * Writes the state of every Cell, in index order, packed into as few bytes as bitsPerState allows
+	 * @param buffer: buffer receiving the packed states
+	 */
+	private void packStates(ByteBuffer buffer) {
+		int statesPerByte = Byte.SIZE / bitsPerState;
+		for (int cell = 0; cell < states.length; cell += statesPerByte) {
+			int packed = 0;
+			for (int i = 0; i < statesPerByte && cell + i < states.length; i++) {
+				packed |= states[cell + i] << (i * bitsPerState);
+			}
+			buffer.put((byte) packed);
+		}
+	}
+
+	/**
+	 * Reads packed states written by packStates
+	 * @param buffer: buffer holding the packed states
+	 * @param numberOfCells: the number of Cells
+	 * @param bitsPerState: the number of bits each state takes
+	 * @return the state of every Cell, indexed as given by Grid.getIndex
+	 */
+	private static byte[] unpackStates(ByteBuffer buffer, long numberOfCells, int bitsPerState) {
+		byte[] states = new byte[Math.toIntExact(numberOfCells)];
+		int statesPerByte = Byte.SIZE / bitsPerState;
+		int mask = (1 << bitsPerState) - 1;
+		for (int cell = 0; cell < states.length; cell += statesPerByte) {
+			int packed = buffer.get();
+			for (int i = 0; i < statesPerByte && cell + i < states.length; i++) {
+				states[cell + i] = (byte) (packed >>> (i * bitsPerState) & mask);
+			}
+		}
+		return states;
+	}
+
+	/**
+	 * @param numberOfStates: the number of states a Cell can be in
+	 * @return the smallest number of bits out of 1, 2, 4 and 8 that can hold every state
+	 */
+	private static int getBitsPerState(int numberOfStates) {
+		int bitsPerState = 1;
+		while (1 << bitsPerState < numberOfStates) {
+			bitsPerState *= 2;
+		}
+		return bitsPerState;
+	}
+
+	/**
+	 * @param bitsPerState: the number of bits each state takes, as read from a snapshot
+	 * @return true if it is one of the sizes packStates writes: 1, 2, 4 or 8; false otherwise
+	 */
+	private static boolean isPackedSize(int bitsPerState) {
+		return bitsPerState > 0 && bitsPerState <= Byte.SIZE && Integer.bitCount(bitsPerState) == 1;
+	}
+
+	/**
+	 * @param numberOfCells: the number of Cells
+	 * @param bitsPerState: the number of bits each state takes
+	 * @return the number of bytes the packed states of the Cells take
+	 */
+	private static long getPackedSize(long numberOfCells, int bitsPerState) {
+		return (numberOfCells * bitsPerState + Byte.SIZE - 1) / Byte.SIZE;
+	}
+
+	/**
+	 * Takes the next bytes of a buffer as a buffer of their own
+	 * @param buffer: the buffer, which is advanced past the bytes
+	 * @param length: the number of bytes
+	 * @return buffer holding the bytes
+	 */
+	private static ByteBuffer slice(ByteBuffer buffer, long length) {
+		if (length < 0 || length > buffer.remaining()) throw new BufferUnderflowException();
+		ByteBuffer slice = buffer.slice();
+		slice.limit((int) length);
+		buffer.position(buffer.position() + (int) length);
+		return slice;
+	}
+
+	/**
+	 * Writes a string as its length followed by its UTF-8 bytes
+	 * @param buffer: buffer receiving the string
+	 * @param string: the string
+	 */
+	private static void writeString(ByteBuffer buffer, String string) {
+		byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+		buffer.putInt(bytes.length);
+		buffer.put(bytes);
+	}
+
+	/**
+	 * @param buffer: buffer holding a string written by writeString
+	 * @return the string
+	 */
+	private static String readString(ByteBuffer buffer) {
+		int length = buffer.getInt();
+		if (length < 0 || length > buffer.remaining()) throw new BufferUnderflowException();
+		byte[] bytes = new byte[length];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * @param string: a string
+	 * @return the number of bytes writeString writes for the string
+	 */
+	private static int getStringSize(String string) {
+		return Integer.BYTES + string.getBytes(StandardCharsets.UTF_8).length;
+	}
+
+}
@@ -0,0 +1,85 @@
+package preprocessing;
+
+import model.engines.OuterTotalisticRule;
+import model.grid.GridStandard;
+import model.grid.GridToroidal;
+import model.simulations.GameOfLife;
+import model.simulations.GameOfLifeBitPacked;
+import model.simulations.GameOfLifeHashlife;
+import model.simulations.Segregation;
+import model.simulations.SpreadingFire;
+import model.simulations.Sugarscape;
+
+/**
+ * 
+ * Registers the Simulation and Grid types that come with the project
+ * 
+ * @author Stephen
+ *
+ */
+class BuiltInSimulations implements SimulationPlugin {
+
+	private final String ENGINE_BIT_PACKED = "BitPacked";
+	private final String ENGINE_HASHLIFE = "Hashlife";
+	private final String RANDOMNESS_COUNTER_BASED = "CounterBased";
+	private final String ERROR_MESSAGE_ENGINE_RULE = "Only Conway's Rule B3/S23 Is Supported By Engine ";
+
+	/**
+	 * Registers Game of Life, Spreading Fire, Segregation and Sugarscape, and standard and toroidal Grids
+	 */
+	@Override
+	public void registerWith(SimulationRegistry registry) {
+		registry.registerSimulation("GameOfLife", this::createGameOfLife);
+		registry.registerSimulation("SpreadingFire", this::createSpreadingFire);
+		registry.registerSimulation("Segregation", this::createSegregation);
+		registry.registerSimulation("Sugarscape", (configuration, seed) -> new Sugarscape(configuration.getGrid(), seed));
+		registry.registerGrid("GridStandard", GridStandard::new);
+		registry.registerGrid("GridToroidal", GridToroidal::new);
+	}
+
+	/**
+	 * @param configuration: the Simulation's parameters and Grid
+	 * @param seed: the seed of the Simulation's random number generator
+	 * @return a Simulation of Game of Life under the rule the XML file gives, or Conway's rule if it gives 
+	 * none; backed by a bit-packed board if the XML file selects the BitPacked engine, or by an infinite 
+	 * Hashlife universe if it selects the Hashlife engine
+	 * @throws IllegalArgumentException if the rule is invalid, or is not Conway's rule and the XML file 
+	 * selects an engine that only supports Conway's rule
+	 */
+	private GameOfLife createGameOfLife(SimulationConfiguration configuration, long seed) {
+		String engine = configuration.getOptionalValue("engine");
+		String ruleString = configuration.getOptionalValue("rule");
+		OuterTotalisticRule rule = ruleString == null ? OuterTotalisticRule.CONWAY : OuterTotalisticRule.parse(ruleString);
+		boolean conwayOnlyEngine = ENGINE_BIT_PACKED.equals(engine) || ENGINE_HASHLIFE.equals(engine);
+		if (conwayOnlyEngine && !rule.equals(OuterTotalisticRule.CONWAY)) {
+			throw new IllegalArgumentException(ERROR_MESSAGE_ENGINE_RULE + engine);
+		}
+		if (ENGINE_BIT_PACKED.equals(engine)) return new GameOfLifeBitPacked(configuration.getGrid(), seed);
+		if (ENGINE_HASHLIFE.equals(engine)) return new GameOfLifeHashlife(configuration.getGrid(), seed);
+		return new GameOfLife(configuration.getGrid(), rule, seed);
+	}
+
+	/**
+	 * @param configuration: the Simulation's parameters and Grid
+	 * @param seed: the seed of the Simulation's random number generator
+	 * @return a Simulation of Spreading Fire; whose draws are hashed from each Cell and generation 
+	 * if the XML file selects CounterBased randomness
+	 */
+	private SpreadingFire createSpreadingFire(SimulationConfiguration configuration, long seed) {
+		double probabilityCatch = Double.parseDouble(configuration.getValue("probabilityCatch"));
+		SpreadingFire simulation = new SpreadingFire(configuration.getGrid(), probabilityCatch, seed);
+		simulation.setCounterBasedRandomness(RANDOMNESS_COUNTER_BASED.equals(configuration.getOptionalValue("randomness")));
+		return simulation;
+	}
+
+	/**
+	 * @param configuration: the Simulation's parameters and Grid
+	 * @param seed: the seed of the Simulation's random number generator
+	 * @return a Simulation of Segregation
+	 */
+	private Segregation createSegregation(SimulationConfiguration configuration, long seed) {
+		double threshold = Double.parseDouble(configuration.getValue("threshold"));
+		return new Segregation(configuration.getGrid(), threshold, seed);
+	}
+
+}
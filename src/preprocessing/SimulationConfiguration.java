@@ -0,0 +1,67 @@
+package preprocessing;
+
+import java.util.Collections;
+import java.util.Map;
+
+import model.grid.Grid;
+
+/**
+ * 
+ * Contents of a simulation file: the value of every parameter, keyed by its XML tag, and the
+ * Grid holding the initial state of every Cell
+ * 
+ * @author Stephen
+ *
+ */
+public class SimulationConfiguration {
+
+	private final String ERROR_MESSAGE_MISSING_VALUE = "XML File Is Missing Required Tag: ";
+	private final Map<String, String> values;
+	private final Grid grid;
+
+	/**
+	 * Instantiates a configuration
+	 * @param values: the value of every parameter, keyed by its XML tag
+	 * @param grid: Grid holding the initial state of every Cell
+	 */
+	public SimulationConfiguration(Map<String, String> values, Grid grid) {
+		this.values = values;
+		this.grid = grid;
+	}
+
+	/**
+	 * 
+	 * @param key: XML tag containing data to be read
+	 * @return data from XML node as String
+	 * @throws IllegalArgumentException if the file does not contain the tag
+	 */
+	public String getValue(String key) {
+		String value = values.get(key);
+		if (value == null) throw new IllegalArgumentException(ERROR_MESSAGE_MISSING_VALUE + key);
+		return value;
+	}
+
+	/**
+	 * 
+	 * @param key: XML tag containing data to be read
+	 * @return data from XML node as String, or null if the file does not contain the tag
+	 */
+	public String getOptionalValue(String key) {
+		return values.get(key);
+	}
+
+	/**
+	 * @return the value of every parameter, keyed by its XML tag
+	 */
+	public Map<String, String> getValues() {
+		return Collections.unmodifiableMap(values);
+	}
+
+	/**
+	 * @return Grid holding the initial state of every Cell
+	 */
+	public Grid getGrid() {
+		return grid;
+	}
+
+}
@@ -0,0 +1,23 @@
+package preprocessing;
+
+import model.simulations.Simulation;
+
+/**
+ * 
+ * Creates Simulations of one type; Registered with a SimulationRegistry under the type's name, 
+ * as given in the simulationType tag of XML files
+ * 
+ * @author Stephen
+ *
+ */
+public interface SimulationFactory {
+
+	/**
+	 * @param configuration: the Simulation's parameters and the Grid it runs on
+	 * @param seed: the seed of the Simulation's random number generator
+	 * @return a Simulation of the factory's type
+	 * @throws IllegalArgumentException if a required parameter is missing
+	 */
+	Simulation createSimulation(SimulationConfiguration configuration, long seed);
+
+}
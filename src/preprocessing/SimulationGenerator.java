@@ -1,54 +1,41 @@
 package preprocessing;
 
-import java.lang.reflect.Constructor;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
-import java.util.ArrayList;
-import java.util.List;
-
-import org.w3c.dom.Document;
-import org.w3c.dom.NodeList;
-
-import model.cells.Cell;
-import model.grid.Grid;
-import model.simulations.GameOfLife;
-import model.simulations.Segregation;
+import model.random.SplitMix64;
 import model.simulations.Simulation;
-import model.simulations.SpreadingFire;
-import model.simulations.Sugarscape;
 
 /**
  * 
- * Generates Simulation with parameters given in selected XML file
+ * Generates Simulation with parameters given in selected XML file; The Simulation is created by
+ * the factory registered for its type in a SimulationRegistry
  * 
  * @author Stephen
  *
  */
 public class SimulationGenerator {
 
-	private Document document;
-	private double gridWidth;
-	private double gridHeight;
-	private double cellWidth;
-	private double cellHeight;
-	private List<String> rows;
-	private int numberOfRows;
-	private int numberOfColumns;
+	private final String SCHEDULING_ACTIVE_SET = "ActiveSet";
+	private final SimulationRegistry registry;
+	private SimulationConfiguration configuration;
 	private String simulationType;
-	private String gridType;
 	private String cellType;
-	private Grid grid;
+	private long seed;
+
+	/**
+	 * Instantiates a Simulation Generator that creates Simulations with the default registry
+	 * @param configuration: configuration containing data pertaining to the Simulation, Grid, and Cells
+	 */
+	public SimulationGenerator(SimulationConfiguration configuration) {
+		this(configuration, SimulationRegistry.getDefault());
+	}
 
 	/**
 	 * Instantiates a Simulation Generator
-	 * @param document: document containing data pertaining to the Simu;ation, Grid, and Cells
-	 * @param gridWidth: width of the Grid
-	 * @param gridHeight: height of the Grid
+	 * @param configuration: configuration containing data pertaining to the Simulation, Grid, and Cells
+	 * @param registry: registry holding the factory for each type of Simulation
 	 */
-	public SimulationGenerator(Document document, double gridWidth, double gridHeight) {
-		this.document = document;
-		this.gridWidth = gridWidth;
-		this.gridHeight = gridHeight;
+	public SimulationGenerator(SimulationConfiguration configuration, SimulationRegistry registry) {
+		this.configuration = configuration;
+		this.registry = registry;
 		retrieveData();
 	}
 
@@ -56,125 +43,50 @@ public class SimulationGenerator {
 	 * Retrieves data necessary to generate Grid and Simulation
 	 */
 	private void retrieveData() {
-		rows = getRows();
-		numberOfRows = Integer.parseInt(getValue("numberOfRows"));
-		numberOfColumns = Integer.parseInt(getValue("numberOfColumns"));
 		simulationType = getValue("simulationType");
-		gridType = getValue("gridType");
 		cellType = getValue("cellType");
-		cellWidth = gridWidth / numberOfRows;
-		cellHeight = gridHeight / numberOfColumns;
-	}
-
-	/**
-	 * 
-	 * @return Simulation of the type specified in XML file
-	 * 
-	 */
-	public Simulation getSimulation() throws NoSuchMethodException, SecurityException, IllegalAccessException,
-			IllegalArgumentException, InvocationTargetException, ClassNotFoundException, InstantiationException {
-		grid = getGrid();
-		populateGrid();
-		Method methodToCall = this.getClass().getDeclaredMethod("get" + simulationType + "Simulation");
-		return (Simulation) methodToCall.invoke(this);
+		String seedValue = getOptionalValue("seed");
+		seed = seedValue == null ? SplitMix64.randomSeed() : Long.parseLong(seedValue);
 	}
 
 	/**
 	 * 
-	 * @param key: XML tag containing data to be read
-	 * @return data from XML node as String
+	 * @return the type of Cell, i.e. CellSquare or CellTriangle, that the XML file specifies 
+	 * for displaying the Grid
 	 */
-	private String getValue(String key) {
-		return document.getElementsByTagName(key).item(0).getTextContent();
+	public String getCellType() {
+		return cellType;
 	}
 
 	/**
 	 * 
-	 * @return a List of Strings representing the rows of the Grid, where each character in the 
-	 * Strings represents the initial state of a cell
+	 * @return Simulation of the type specified in XML file
+	 * @throws IllegalArgumentException if the type is not registered or a required parameter is missing
 	 */
-	private List<String> getRows() {
-		List<String> rows = new ArrayList<>();
-		NodeList nodes = document.getElementsByTagName("row");
-		for (int i = 0; i < nodes.getLength(); i++) {
-			String row = nodes.item(i).getTextContent();
-			rows.add(row);
-		}
-		return rows;
+	public Simulation getSimulation() {
+		Simulation simulation = registry.getSimulationFactory(simulationType).createSimulation(configuration, seed);
+		String threads = getOptionalValue("threads");
+		if (threads != null) simulation.setParallelism(Integer.parseInt(threads));
+		simulation.setActiveSetScheduling(SCHEDULING_ACTIVE_SET.equals(getOptionalValue("scheduling")));
+		return simulation;
 	}
 
 	/**
 	 * 
-	 * @param cellType: the cell type i.e. square, triangle, etc.
-	 * @param initialState: the initial state of the cell
-	 * @param row: the cell's row in the Grid
-	 * @param column: the cell's column in the Grid
-	 * @return a Cell as specified by the XML file
+	 * @param key: XML tag containing data to be read
+	 * @return data from XML node as String
 	 */
-	private Cell getCell(String cellType, int initialState, int row, int column)
-			throws ClassNotFoundException, NoSuchMethodException, SecurityException, InstantiationException,
-			IllegalAccessException, IllegalArgumentException, InvocationTargetException {
-		Class<?> myClass = Class.forName("model.cells." + cellType);
-		Constructor<?> constructor = myClass.getConstructor(int.class, double.class, double.class, int.class,
-				int.class);
-		Cell cell = (Cell) constructor.newInstance(initialState, cellHeight, cellWidth, row, column);
-		return cell;
+	private String getValue(String key) {
+		return configuration.getValue(key);
 	}
 
 	/**
 	 * 
-	 * @return a Grid of the type specified in the XML file
-	 */
-	private Grid getGrid() throws ClassNotFoundException, NoSuchMethodException, SecurityException,
-			InstantiationException, IllegalAccessException, IllegalArgumentException, InvocationTargetException {
-		Class<?> myClass = Class.forName("model.grid." + gridType);
-		Constructor<?> constructor = myClass.getConstructor(int.class, int.class);
-		Grid grid = (Grid) constructor.newInstance(numberOfRows, numberOfColumns);
-		return grid;
-	}
-
-	/**
-	 * Fills Grid with Cells
-	 */
-	private void populateGrid() throws ClassNotFoundException, NoSuchMethodException, SecurityException,
-			InstantiationException, IllegalAccessException, IllegalArgumentException, InvocationTargetException {
-		for (int row = 0; row < numberOfRows; row++) {
-			for (int column = 0; column < numberOfColumns; column++) {
-				int cellInitialState = Integer.parseInt(rows.get(row).charAt(column) + "");
-				Cell cell = getCell(cellType, cellInitialState, row, column);
-				grid.setCell(row, column, cell);
-			}
-		}
-	}
-
-	/**
-	 * @return a Simulation of Game of Life
-	 */
-	private GameOfLife getGameOfLifeSimulation() {
-		return new GameOfLife(grid);
-	}
-
-	/**
-	 * @return a Simulation of Spreading Fire
-	 */
-	private SpreadingFire getSpreadingFireSimulation() {
-		double probabilityCatch = Double.parseDouble(getValue("probabilityCatch"));
-		return new SpreadingFire(grid, probabilityCatch);
-	}
-
-	/**
-	 * @return a Simulation of Segregation
-	 */
-	private Segregation getSegregationSimulation() {
-		double threshold = Double.parseDouble(getValue("threshold"));
-		return new Segregation(grid, threshold);
-	}
-	
-	/**
-	 * @return a Simulation of Sugarscape
+	 * @param key: XML tag containing data to be read
+	 * @return data from XML node as String, or null if the XML file does not contain the tag
 	 */
-	private Sugarscape getSugarscapeSimulation() {
-		return new Sugarscape(grid);
+	private String getOptionalValue(String key) {
+		return configuration.getOptionalValue(key);
 	}
 
 }
@@ -0,0 +1,20 @@
+package preprocessing;
+
+/**
+ * 
+ * Adds Simulation and Grid types to the default SimulationRegistry. Implementations are discovered
+ * with java.util.ServiceLoader, so a jar on the class path that lists its plugin in 
+ * META-INF/services/preprocessing.SimulationPlugin can add new rules without changes to this project
+ * 
+ * @author Stephen
+ *
+ */
+public interface SimulationPlugin {
+
+	/**
+	 * Registers the plugin's Simulation and Grid types
+	 * @param registry: the registry to add the types to
+	 */
+	void registerWith(SimulationRegistry registry);
+
+}
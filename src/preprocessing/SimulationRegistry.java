@@ -0,0 +1,91 @@
+package preprocessing;
+
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
+
+import model.grid.GridFactory;
+
+/**
+ * 
+ * Registry of the factories that create each type of Simulation and Grid, keyed by the type's name
+ * as given in the simulationType and gridType tags of XML files. Holds the built in types and those
+ * added by every SimulationPlugin on the class path
+ * 
+ * @author Stephen
+ *
+ */
+public class SimulationRegistry {
+
+	private final String ERROR_MESSAGE_UNKNOWN_SIMULATION_TYPE = "Unknown Simulation Type: ";
+	private final String ERROR_MESSAGE_UNKNOWN_GRID_TYPE = "Unknown Grid Type: ";
+	private final Map<String, SimulationFactory> simulationFactories = new ConcurrentHashMap<>();
+	private final Map<String, GridFactory> gridFactories = new ConcurrentHashMap<>();
+
+	/**
+	 * Holds the default registry, which is created the first time it is used
+	 */
+	private static class DefaultRegistry {
+		private static final SimulationRegistry INSTANCE = createDefault();
+	}
+
+	/**
+	 * @return the registry holding the built in types and those of every SimulationPlugin on the class path
+	 */
+	public static SimulationRegistry getDefault() {
+		return DefaultRegistry.INSTANCE;
+	}
+
+	/**
+	 * Registers a type of Simulation, replacing any type registered under the same name
+	 * @param simulationType: name of the type
+	 * @param factory: factory creating Simulations of the type
+	 */
+	public void registerSimulation(String simulationType, SimulationFactory factory) {
+		simulationFactories.put(simulationType, factory);
+	}
+
+	/**
+	 * Registers a type of Grid, replacing any type registered under the same name
+	 * @param gridType: name of the type
+	 * @param factory: factory creating Grids of the type
+	 */
+	public void registerGrid(String gridType, GridFactory factory) {
+		gridFactories.put(gridType, factory);
+	}
+
+	/**
+	 * @param simulationType: name of a type of Simulation
+	 * @return factory creating Simulations of the type
+	 * @throws IllegalArgumentException if no type is registered under the name
+	 */
+	public SimulationFactory getSimulationFactory(String simulationType) {
+		SimulationFactory factory = simulationFactories.get(simulationType);
+		if (factory == null) throw new IllegalArgumentException(ERROR_MESSAGE_UNKNOWN_SIMULATION_TYPE + simulationType);
+		return factory;
+	}
+
+	/**
+	 * @param gridType: name of a type of Grid
+	 * @return factory creating Grids of the type
+	 * @throws IllegalArgumentException if no type is registered under the name
+	 */
+	public GridFactory getGridFactory(String gridType) {
+		GridFactory factory = gridFactories.get(gridType);
+		if (factory == null) throw new IllegalArgumentException(ERROR_MESSAGE_UNKNOWN_GRID_TYPE + gridType);
+		return factory;
+	}
+
+	/**
+	 * @return a registry holding the built in types and those of every SimulationPlugin on the class path
+	 */
+	private static SimulationRegistry createDefault() {
+		SimulationRegistry registry = new SimulationRegistry();
+		new BuiltInSimulations().registerWith(registry);
+		for (SimulationPlugin plugin : ServiceLoader.load(SimulationPlugin.class)) {
+			plugin.registerWith(registry);
+		}
+		return registry;
+	}
+
+}
@@ -1,17 +1,30 @@
 package preprocessing;
 
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 
-import org.w3c.dom.Document;
-
-import errorHandling.ErrorHandler;
+import model.grid.Grid;
 
 /**
  * 
- * Parser that parses XML file
+ * Parser that parses XML file. Streams the file with StAX instead of building a DOM: parameters are
+ * collected by tag, and the digits of each row are written straight into the Grid's state buffer as 
+ * they are read, so loading a grid takes no memory beyond the Grid itself. Files are expected to give
+ * numberOfRows, numberOfColumns, and gridType before the rows; files that give them later still load, 
+ * with the rows held as one byte per Cell until the Grid can be created
  * 
  * @author Stephen
  *
@@ -19,24 +32,225 @@ import errorHandling.ErrorHandler;
 public class XMLParser {
 
 	private final String ERROR_MESSAGE_PARSING = "XML File Could Not Be Parsed";
+	private final String ERROR_MESSAGE_INVALID_STATE = "Row Contains a Character That Is Not a Cell State: ";
+	private final String ERROR_MESSAGE_SHORT_ROW = "Row Has Fewer Cells Than numberOfColumns: Row ";
+	private final String ERROR_MESSAGE_MISSING_ROWS = "XML File Has Fewer Rows Than numberOfRows";
+	private final String ROW = "row";
+	private final String NUMBER_OF_ROWS = "numberOfRows";
+	private final String NUMBER_OF_COLUMNS = "numberOfColumns";
+	private final String GRID_TYPE = "gridType";
+	private final SimulationRegistry registry;
+
+	/**
+	 * Instantiates a parser that creates Grids with the default registry
+	 */
+	public XMLParser() {
+		this(SimulationRegistry.getDefault());
+	}
+
+	/**
+	 * Instantiates a parser
+	 * @param registry: registry holding the factory for each type of Grid
+	 */
+	public XMLParser(SimulationRegistry registry) {
+		this.registry = registry;
+	}
 	
 	/**
-	 * Parses XML file and returns Document
+	 * Parses XML file
 	 * @param file: XML file
-	 * @return parsed XML file as Document
+	 * @return the parameters and initial Grid described by the file
+	 * @throws IllegalArgumentException if the file could not be parsed
 	 */
-    public Document parseXMLFile(File file) {
-        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-        DocumentBuilder builder;
+	public SimulationConfiguration parseXMLFile(File file) {
+		try (InputStream input = new BufferedInputStream(new FileInputStream(file))) {
+			return parseXML(input);
+		} catch (IOException e) {
+			throw new IllegalArgumentException(ERROR_MESSAGE_PARSING, e);
+		}
+	}
+
+	/**
+	 * Parses XML read from a stream
+	 * @param input: stream of XML in the same format as the files in src/resources
+	 * @return the parameters and initial Grid described by the XML
+	 * @throws IllegalArgumentException if the XML could not be parsed
+	 */
+	public SimulationConfiguration parseXML(InputStream input) {
+		XMLInputFactory factory = XMLInputFactory.newInstance();
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
 		try {
-			builder = factory.newDocumentBuilder();
-	        Document document = builder.parse(file);
-	        document.getDocumentElement().normalize();
-	        return document;
-		} catch (Exception e) {
-			ErrorHandler.handleError(ERROR_MESSAGE_PARSING);
-		}
-		return null;
-    }
+			XMLStreamReader reader = factory.createXMLStreamReader(input);
+			try {
+				return new ConfigurationReader(reader).read();
+			} finally {
+				reader.close();
+			}
+		} catch (XMLStreamException | NumberFormatException e) {
+			throw new IllegalArgumentException(ERROR_MESSAGE_PARSING, e);
+		}
+	}
+
+	/**
+	 * 
+	 * Holds the state of a single parse: the parameters read so far, the row being streamed,
+	 * and the Grid once it can be created
+	 *
+	 */
+	private class ConfigurationReader {
+
+		private final XMLStreamReader reader;
+		private final Map<String, String> values = new HashMap<>();
+		private final StringBuilder text = new StringBuilder();
+		private final List<byte[]> pendingRows = new ArrayList<>();
+		private ByteArrayOutputStream pendingRow;
+		private boolean leaf;
+		private boolean inRow;
+		private Grid grid;
+		private int row;
+		private int column;
+
+		/**
+		 * @param reader: reader positioned at the start of the XML
+		 */
+		private ConfigurationReader(XMLStreamReader reader) {
+			this.reader = reader;
+		}
+
+		/**
+		 * Reads every event of the XML
+		 * @return the parameters and initial Grid
+		 */
+		private SimulationConfiguration read() throws XMLStreamException {
+			while (reader.hasNext()) {
+				switch (reader.next()) {
+				case XMLStreamConstants.START_ELEMENT:
+					startElement(reader.getLocalName());
+					break;
+				case XMLStreamConstants.CHARACTERS:
+				case XMLStreamConstants.CDATA:
+				case XMLStreamConstants.SPACE:
+					characters(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+					break;
+				case XMLStreamConstants.END_ELEMENT:
+					endElement();
+					break;
+				default:
+					break;
+				}
+			}
+			return new SimulationConfiguration(values, finishGrid());
+		}
+
+		/**
+		 * Starts collecting the text of a parameter, or starts streaming a row into the Grid
+		 * @param tag: the element's tag
+		 */
+		private void startElement(String tag) {
+			text.setLength(0);
+			leaf = !ROW.equals(tag);
+			if (leaf) return;
+			inRow = true;
+			column = 0;
+			if (grid == null && canCreateGrid()) grid = createGrid();
+			if (grid == null) pendingRow = new ByteArrayOutputStream();
+		}
+
+		/**
+		 * Appends text to the current parameter, or writes the states in a row's text to the Grid
+		 * @param characters: buffer holding the text
+		 * @param start: start of the text in the buffer
+		 * @param length: length of the text
+		 */
+		private void characters(char[] characters, int start, int length) {
+			if (!inRow) {
+				if (leaf) text.append(characters, start, length);
+				return;
+			}
+			for (int i = start; i < start + length; i++) {
+				char character = characters[i];
+				if (Character.isWhitespace(character)) continue;
+				if (character < '0' || character > '9') 
+					throw new IllegalArgumentException(ERROR_MESSAGE_INVALID_STATE + character);
+				putState(character - '0');
+			}
+		}
+
+		/**
+		 * Stores the state of the next Cell in the current row; States beyond the Grid's 
+		 * rows and columns are ignored
+		 * @param state: the Cell's initial state
+		 */
+		private void putState(int state) {
+			if (grid == null) pendingRow.write(state);
+			else if (row < grid.getNumberOfRows() && column < grid.getNumberOfColumns()) grid.setState(row, column, state);
+			column++;
+		}
+
+		/**
+		 * Finishes a row or stores the text of a parameter; Only the first occurrence of a tag is kept
+		 */
+		private void endElement() {
+			if (inRow) {
+				if (grid == null) pendingRows.add(pendingRow.toByteArray());
+				else checkRowLength(row, column);
+				inRow = false;
+				row++;
+			}
+			else if (leaf) {
+				values.putIfAbsent(reader.getLocalName(), text.toString().trim());
+			}
+			leaf = false;
+		}
+
+		/**
+		 * Creates the Grid if no row needed it yet and copies in any rows read before it existed
+		 * @return the Grid holding every row
+		 */
+		private Grid finishGrid() {
+			if (grid == null) {
+				grid = createGrid();
+				for (int i = 0; i < Math.min(pendingRows.size(), grid.getNumberOfRows()); i++) {
+					byte[] states = pendingRows.get(i);
+					checkRowLength(i, states.length);
+					for (int j = 0; j < grid.getNumberOfColumns(); j++) {
+						grid.setState(i, j, states[j]);
+					}
+				}
+			}
+			if (row < grid.getNumberOfRows()) throw new IllegalArgumentException(ERROR_MESSAGE_MISSING_ROWS);
+			return grid;
+		}
+
+		/**
+		 * @param rowIndex: the row
+		 * @param length: the number of states the row held
+		 * @throws IllegalArgumentException if a row of the Grid held fewer states than the Grid has columns
+		 */
+		private void checkRowLength(int rowIndex, int length) {
+			if (rowIndex < grid.getNumberOfRows() && length < grid.getNumberOfColumns())
+				throw new IllegalArgumentException(ERROR_MESSAGE_SHORT_ROW + rowIndex);
+		}
+
+		/**
+		 * @return true if every parameter needed to create the Grid has been read; false otherwise
+		 */
+		private boolean canCreateGrid() {
+			return values.containsKey(NUMBER_OF_ROWS) && values.containsKey(NUMBER_OF_COLUMNS) 
+					&& values.containsKey(GRID_TYPE);
+		}
+
+		/**
+		 * 
+		 * @return an empty Grid of the type and size specified in the XML file
+		 */
+		private Grid createGrid() {
+			SimulationConfiguration configuration = new SimulationConfiguration(values, null);
+			int numberOfRows = Integer.parseInt(configuration.getValue(NUMBER_OF_ROWS));
+			int numberOfColumns = Integer.parseInt(configuration.getValue(NUMBER_OF_COLUMNS));
+			return registry.getGridFactory(configuration.getValue(GRID_TYPE)).createGrid(numberOfRows, numberOfColumns);
+		}
+
+	}
 
 }
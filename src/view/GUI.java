@@ -1,21 +1,22 @@
 package view;
 
-import javafx.scene.Group;
 import javafx.scene.Scene;
 import javafx.scene.layout.BorderPane;
-import model.cells.Cell;
+import model.cells.CellShapeRegistry;
 import model.grid.Grid;
+import model.grid.GridFrame;
+import model.simulations.Simulation;
 
 /**
  * 
- * GUI displaying the Grid and Toolbar
+ * GUI displaying the Grid and Toolbar. Draws each Cell in the color of its state in frames of the Simulation's Grid
  * 
  * @author Stephen
  *
  */
 public class GUI extends BorderPane {
 
-    private Group gridDisplay;
+    private GridRenderer gridRenderer;
 	private Scene scene;
 	private BorderPane borderPane;
     private Toolbar toolbar;
@@ -28,26 +29,36 @@ public class GUI extends BorderPane {
      */
 	public GUI(double screenWidth, double screenHeight, Toolbar toolbar) {
         this.toolbar = toolbar;
-        gridDisplay = new Group();
-        setCenter(gridDisplay);
+        gridRenderer = new GridRenderer();
+        setCenter(gridRenderer.getNode());
         setTop(toolbar.getContainer());
 		scene = new Scene(this, screenWidth, screenHeight);
 	}
 
 	/**
 	 * 
-	 * Renders a Grid in the gridDisplay
+	 * Lays out the Grid of a Simulation in the GridRenderer and draws its current generation; Must be 
+	 * called before the Simulation starts running on another thread
 	 * 
-	 * @param grid: Grid to be rendered
+	 * @param simulation: Simulation whose Grid is to be rendered
+	 * @param cellType: the cell type i.e. CellSquare, CellTriangle, etc.
+	 * @param gridWidth: width of the rendered Grid
+	 * @param gridHeight: height of the rendered Grid
+	 * @throws IllegalArgumentException if the cell type is not registered
 	 */
-    public void setGridDisplay(Grid grid) {
-        gridDisplay.getChildren().clear();
-        for (int row = 0; row < grid.getNumberOfRows(); row++) {
-            for (int column = 0; column < grid.getNumberOfColumns(); column++) {
-                Cell cell = grid.getCell(row, column);
-                gridDisplay.getChildren().add(cell);
-            }
-        }
+    public void setGridDisplay(Simulation simulation, String cellType, double gridWidth, double gridHeight) {
+        Grid grid = simulation.getGrid();
+        gridRenderer.setGrid(grid.getNumberOfRows(), grid.getNumberOfColumns(),
+                CellShapeRegistry.getDefault().getCellShape(cellType), simulation.getStatePalette(), gridWidth, gridHeight);
+        gridRenderer.drawGrid(GridFrame.capture(grid, simulation.getGeneration()));
+    }
+
+    /**
+     * Redraws the Cells that changed since the previous frame
+     * @param frame: the frame to draw, which must follow the frame drawn last
+     */
+    public void drawFrame(GridFrame frame) {
+        gridRenderer.drawChanges(frame);
     }
 
     /**
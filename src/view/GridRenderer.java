@@ -0,0 +1,229 @@
+package view;
+
+import java.nio.IntBuffer;
+
+import javafx.scene.Node;
+import javafx.scene.image.ImageView;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+import model.cells.CellShape;
+import model.grid.GridFrame;
+
+/**
+ *
+ * Draws frames of a Grid into a single image instead of one scene graph node per Cell. When a Grid is 
+ * laid out, every pixel of the image is mapped once to the Cell covering it, so that drawing a frame 
+ * only looks up each pixel's Cell state in the Simulation's palette and writes the result to the image 
+ * in one call. After the first frame, only the Cells that changed are redrawn, unless more than a quarter
+ * of the frame changed, in which case redrawing every pixel is cheaper than redrawing each Cell's
+ * bounding box. Cells that are large enough are outlined, as the Polygons that used to represent them were
+ *
+ * @author Stephen
+ *
+ */
+public class GridRenderer {
+
+	private static final int BACKGROUND = 0xFFFFFFFF;
+	private static final int OUTLINE = 0xFF000000;
+	private static final int NO_CELL = -1;
+	private static final int CELL_OUTLINE = -2;
+	private static final double MINIMUM_OUTLINED_CELL_SIZE = 4;
+	private static final double FULL_REDRAW_FRACTION = 0.25;
+	private static final double PIXEL_CENTER = 0.5;
+	private static final int ALPHA = 0xFF000000;
+	private static final int COLOR_CHANNEL_MAXIMUM = 255;
+	private final ImageView imageView;
+	private final PixelFormat<IntBuffer> pixelFormat;
+	private WritableImage image;
+	private CellShape shape;
+	private int rows;
+	private int columns;
+	private int width;
+	private int height;
+	private double cellWidth;
+	private double cellHeight;
+	private int[] pixelCells;
+	private int[] pixels;
+	private int[] palette;
+	private double pixelsPerCell;
+	private int dirtyFirstX;
+	private int dirtyFirstY;
+	private int dirtyLastX;
+	private int dirtyLastY;
+
+	/**
+	 * Instantiates a renderer with nothing to draw
+	 */
+	public GridRenderer() {
+		imageView = new ImageView();
+		pixelFormat = PixelFormat.getIntArgbPreInstance();
+	}
+
+	/**
+	 * @return the node displaying the drawn Grid
+	 */
+	public Node getNode() {
+		return imageView;
+	}
+
+	/**
+	 * Lays out a Grid in an image of the given size, mapping each pixel to the Cell covering it
+	 * @param rows: the number of rows in the Grid
+	 * @param columns: the number of columns in the Grid
+	 * @param shape: shape of the Grid's Cells
+	 * @param colorNames: the web color of each state, indexed by state
+	 * @param gridWidth: width of the drawn Grid
+	 * @param gridHeight: height of the drawn Grid
+	 */
+	public void setGrid(int rows, int columns, CellShape shape, String[] colorNames, double gridWidth, double gridHeight) {
+		this.rows = rows;
+		this.columns = columns;
+		this.shape = shape;
+		width = Math.max(1, (int) Math.round(gridWidth));
+		height = Math.max(1, (int) Math.round(gridHeight));
+		cellWidth = width / shape.getRowWidth(columns);
+		cellHeight = (double) height / rows;
+		pixelsPerCell = Math.max(1, cellWidth * cellHeight);
+		setPalette(colorNames);
+		mapPixelsToCells();
+		if (cellWidth >= MINIMUM_OUTLINED_CELL_SIZE && cellHeight >= MINIMUM_OUTLINED_CELL_SIZE) {
+			outlineCells();
+		}
+		pixels = new int[width * height];
+		image = new WritableImage(width, height);
+		imageView.setImage(image);
+	}
+
+	/**
+	 * Draws every Cell according to its state in a frame
+	 * @param frame: the frame to draw
+	 */
+	public void drawGrid(GridFrame frame) {
+		for (int pixel = 0; pixel < pixels.length; pixel++) {
+			pixels[pixel] = getColor(frame, pixelCells[pixel]);
+		}
+		image.getPixelWriter().setPixels(0, 0, width, height, pixelFormat, pixels, 0, width);
+	}
+
+	/**
+	 * Draws the Cells that changed since the previous frame, redrawing only their bounding boxes, unless
+	 * so many changed that drawing the whole frame is cheaper
+	 * @param frame: the frame to draw, which must follow the frame drawn last
+	 */
+	public void drawChanges(GridFrame frame) {
+		int[] changedCells = frame.getChangedCells();
+		int numberOfChangedCells = frame.getNumberOfChangedCells();
+		if (numberOfChangedCells == 0) return;
+		boolean cheaperToRedrawAll = numberOfChangedCells > FULL_REDRAW_FRACTION * pixelCells.length / pixelsPerCell;
+		if (numberOfChangedCells == GridFrame.ALL_CELLS_CHANGED || cheaperToRedrawAll) {
+			drawGrid(frame);
+			return;
+		}
+		dirtyFirstX = width;
+		dirtyFirstY = height;
+		dirtyLastX = 0;
+		dirtyLastY = 0;
+		for (int i = 0; i < numberOfChangedCells; i++) {
+			drawCell(frame, changedCells[i]);
+		}
+		if (dirtyFirstX < dirtyLastX && dirtyFirstY < dirtyLastY) {
+			image.getPixelWriter().setPixels(dirtyFirstX, dirtyFirstY, dirtyLastX - dirtyFirstX, dirtyLastY - dirtyFirstY,
+					pixelFormat, pixels, dirtyFirstY * width + dirtyFirstX, width);
+		}
+	}
+
+	/**
+	 * Colors the pixels of a Cell according to its state in a frame and grows the dirty region of the
+	 * image to cover the Cell's bounding box
+	 * @param frame: the frame being drawn
+	 * @param cell: index of the Cell
+	 */
+	private void drawCell(GridFrame frame, int cell) {
+		int row = cell / columns;
+		double left = shape.getLeft(cell % columns) * cellWidth;
+		int firstX = Math.max(0, (int) Math.floor(left));
+		int lastX = Math.min(width, (int) Math.ceil(left + cellWidth));
+		int firstY = Math.max(0, (int) Math.floor(row * cellHeight));
+		int lastY = Math.min(height, (int) Math.ceil((row + 1) * cellHeight));
+		if (firstX >= lastX || firstY >= lastY) return;
+		int color = palette[frame.getState(cell)];
+		for (int y = firstY; y < lastY; y++) {
+			for (int pixel = y * width + firstX; pixel < y * width + lastX; pixel++) {
+				if (pixelCells[pixel] == cell) pixels[pixel] = color;
+			}
+		}
+		dirtyFirstX = Math.min(dirtyFirstX, firstX);
+		dirtyFirstY = Math.min(dirtyFirstY, firstY);
+		dirtyLastX = Math.max(dirtyLastX, lastX);
+		dirtyLastY = Math.max(dirtyLastY, lastY);
+	}
+
+	/**
+	 * Converts the Simulation's web color names into the ARGB colors written to the image
+	 * @param colorNames: the web color of each state, indexed by state
+	 */
+	private void setPalette(String[] colorNames) {
+		palette = new int[colorNames.length];
+		for (int state = 0; state < colorNames.length; state++) {
+			Color color = Color.web(colorNames[state]);
+			palette[state] = ALPHA | toChannel(color.getRed()) << 16 | toChannel(color.getGreen()) << 8 | toChannel(color.getBlue());
+		}
+	}
+
+	/**
+	 * @param value: a color channel between 0 and 1
+	 * @return the channel between 0 and 255
+	 */
+	private int toChannel(double value) {
+		return (int) Math.round(value * COLOR_CHANNEL_MAXIMUM);
+	}
+
+	/**
+	 * Finds the Cell covering the center of every pixel
+	 */
+	private void mapPixelsToCells() {
+		pixelCells = new int[width * height];
+		for (int y = 0; y < height; y++) {
+			double rowPosition = (y + PIXEL_CENTER) / cellHeight;
+			int row = Math.min(rows - 1, (int) rowPosition);
+			double positionInRow = rowPosition - row;
+			for (int x = 0; x < width; x++) {
+				int column = shape.getColumnAt(row, (x + PIXEL_CENTER) / cellWidth, positionInRow);
+				pixelCells[y * width + x] = column < 0 || column >= columns ? NO_CELL : row * columns + column;
+			}
+		}
+	}
+
+	/**
+	 * Marks every pixel of a Cell that borders a different Cell, or the edge of the image, to its left or
+	 * above it as part of an outline; Each Cell is outlined on its top and left by its own pixels and on
+	 * its bottom and right by those of its neighbors, or by the pixels beyond it if it has none
+	 */
+	private void outlineCells() {
+		int[] cells = pixelCells.clone();
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				int pixel = y * width + x;
+				int cell = cells[pixel];
+				int left = x > 0 ? cells[pixel - 1] : NO_CELL;
+				int above = y > 0 ? cells[pixel - width] : NO_CELL;
+				boolean bordersCell = cell != NO_CELL && (left != cell || above != cell);
+				boolean bordersGrid = cell == NO_CELL && (left != NO_CELL || above != NO_CELL);
+				boolean lastPixel = cell != NO_CELL && (x == width - 1 || y == height - 1);
+				if (bordersCell || bordersGrid || lastPixel) pixelCells[pixel] = CELL_OUTLINE;
+			}
+		}
+	}
+
+	/**
+	 * @param frame: the frame being drawn
+	 * @param pixelCell: index of the Cell covering a pixel, or a marker for pixels not covered by a Cell
+	 * @return color of the pixel
+	 */
+	private int getColor(GridFrame frame, int pixelCell) {
+		if (pixelCell >= 0) return palette[frame.getState(pixelCell)];
+		return pixelCell == CELL_OUTLINE ? OUTLINE : BACKGROUND;
+	}
+
+}
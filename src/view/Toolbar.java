@@ -6,6 +6,7 @@ import javafx.beans.binding.DoubleExpression;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.control.Button;
+import javafx.scene.control.Label;
 import javafx.scene.layout.HBox;
 
 /**
@@ -21,6 +22,7 @@ public class Toolbar extends Observable {
 	private static final double CONTAINER_CHILD_PADDING = 20;
 	private static final double CONTAINER_PADDING = 25;
 	private HBox container;
+	private Label speedLabel;
 	
 	/**
 	 * Instantiates a Toolbar
@@ -45,7 +47,13 @@ public class Toolbar extends Observable {
         addButtonToToolbar("Stop Animation", "stopAnimation");
         addButtonToToolbar("Speed Up", "speedUpAnimation");
         addButtonToToolbar("Slow Down", "slowDownAnimation");
+        speedLabel = new Label();
+        speedLabel.setMinWidth(Label.USE_PREF_SIZE);
+        container.getChildren().add(speedLabel);
         addButtonToToolbar("Step Animation", "stepAnimation");
+        addButtonToToolbar("Fast Forward", "fastForwardAnimation");
+        addButtonToToolbar("Save Snapshot", "saveSnapshot");
+        addButtonToToolbar("Load Snapshot", "loadSnapshot");
     }
 
     /**
@@ -109,6 +117,14 @@ public class Toolbar extends Observable {
     	button.prefWidthProperty().bind(container.widthProperty().multiply(BUTTON_PERCENT_OF_TOOLBAR_WIDTH));
     }
 
+    /**
+     * Displays the speed the Simulation runs at
+     * @param speed: description of the speed, i.e. 10 ticks/s
+     */
+    public void setSpeedText(String speed) {
+        speedLabel.setText(speed);
+    }
+
     /**
      * 
      * @return container holding Toolbar